@@ -248,6 +248,17 @@ INSERT INTO producto_tallas (producto_id, talla, stock) VALUES
 -- Producto 10: Adidas Harden Vol. 6
 (10, 41, 4), (10, 42, 4), (10, 43, 4), (10, 44, 4), (10, 45, 4);
 
+-- Migración: productos sin filas en producto_tallas (creados antes del stock por talla)
+-- reciben las tallas 38-42 repartiendo su stock actual; el total no cambia.
+-- La aplicación hace lo mismo al arrancar (inventario.tallas-iniciales).
+INSERT INTO producto_tallas (producto_id, talla, stock)
+SELECT p.id, t.talla,
+       FLOOR(COALESCE(p.stock, 0) / 5) + (t.orden < MOD(COALESCE(p.stock, 0), 5))
+FROM productos p
+CROSS JOIN (SELECT 0 AS orden, 38 AS talla UNION ALL SELECT 1, 39 UNION ALL SELECT 2, 40
+            UNION ALL SELECT 3, 41 UNION ALL SELECT 4, 42) t
+WHERE NOT EXISTS (SELECT 1 FROM producto_tallas pt WHERE pt.producto_id = p.id);
+
 -- Actualizar stock total en productos
 UPDATE productos p SET p.stock = (
     SELECT SUM(pt.stock) FROM producto_tallas pt WHERE pt.producto_id = p.id
@@ -0,0 +1,187 @@
+package com.stepup.shoes.config;
+
+import com.stepup.shoes.service.VersionCatalogo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caché del HTML ya renderizado de la página de inicio y del catálogo.
+ *
+ * Estas páginas no dependen del usuario, solo de los parámetros de filtro y del
+ * estado del catálogo, así que la clave es la ruta con los parámetros
+ * normalizados más la versión del catálogo. Las entradas se guardan
+ * comprimidas con gzip (y se envían así si el cliente lo acepta), expiran por
+ * TTL, la caché tiene un máximo de entradas (LRU) y se vacía cuando cambia la
+ * versión del catálogo.
+ */
+@Component
+public class CachePaginasFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${cache.paginas.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${cache.paginas.max-entradas:500}")
+    private int maxEntradas;
+
+    @Value("${cache.paginas.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    private Map<String, Entrada> cache;
+
+    private volatile long versionCache;
+
+    private Counter aciertos;
+
+    private Counter fallos;
+
+    @PostConstruct
+    public void init() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                return size() > maxEntradas;
+            }
+        });
+        aciertos = registry.counter("stepup.cache.paginas", "resultado", "acierto");
+        fallos = registry.counter("stepup.cache.paginas", "resultado", "fallo");
+        registry.gaugeMapSize("stepup.cache.paginas.entradas", Tags.empty(), cache);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!habilitado || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String ruta = request.getServletPath();
+        return !("/".equals(ruta) || "/catalogo".equals(ruta) || ruta.startsWith("/catalogo/producto/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        // En toda respuesta (acierto, fallo o 304): un acierto puede ir comprimido o no según
+        // Accept-Encoding, y una caché compartida no debe reutilizar la primera para otro cliente
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (versionCatalogo.noModificado(new ServletWebRequest(request, response), response)) {
+            return;
+        }
+
+        long version = versionCatalogo.getVersion();
+        if (version != versionCache) {
+            // El catálogo cambió: ninguna página guardada sigue siendo válida
+            cache.clear();
+            versionCache = version;
+        }
+
+        String clave = clave(request, version);
+        Entrada entrada = cache.get(clave);
+        if (entrada != null && !entrada.expirada(ttlSegundos)) {
+            aciertos.increment();
+            escribir(request, response, entrada);
+            return;
+        }
+
+        fallos.increment();
+        ContentCachingResponseWrapper envoltorio = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, envoltorio);
+
+        if (envoltorio.getStatus() == HttpServletResponse.SC_OK
+                && envoltorio.getContentType() != null
+                && envoltorio.getContentType().startsWith("text/html")) {
+            cache.put(clave, new Entrada(comprimir(envoltorio.getContentAsByteArray()),
+                    envoltorio.getContentType(), System.currentTimeMillis()));
+        }
+        envoltorio.copyBodyToResponse();
+    }
+
+    // Ruta + parámetros no vacíos ordenados por nombre + versión del catálogo
+    private String clave(HttpServletRequest request, long version) {
+        Map<String, String> parametros = new TreeMap<>();
+        request.getParameterMap().forEach((nombre, valores) -> {
+            if (valores.length > 0 && !valores[0].isBlank()) {
+                String valor = valores[0].trim();
+                parametros.put(nombre, "categoria".equals(nombre) ? valor.toLowerCase(Locale.ROOT) : valor);
+            }
+        });
+        return request.getServletPath() + "?" + parametros + "#" + version;
+    }
+
+    private void escribir(HttpServletRequest request, HttpServletResponse response, Entrada entrada)
+            throws IOException {
+        response.setContentType(entrada.contentType);
+
+        String aceptadas = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        byte[] cuerpo;
+        if (aceptadas != null && aceptadas.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            cuerpo = entrada.gzip;
+        } else {
+            cuerpo = descomprimir(entrada.gzip);
+        }
+        response.setContentLength(cuerpo.length);
+        response.getOutputStream().write(cuerpo);
+    }
+
+    private static byte[] comprimir(byte[] datos) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(datos);
+        }
+        return salida.toByteArray();
+    }
+
+    private static byte[] descomprimir(byte[] datos) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(datos))) {
+            return gzip.readAllBytes();
+        }
+    }
+
+    private static final class Entrada {
+
+        final byte[] gzip;
+        final String contentType;
+        final long creada;
+
+        Entrada(byte[] gzip, String contentType, long creada) {
+            this.gzip = gzip;
+            this.contentType = contentType;
+            this.creada = creada;
+        }
+
+        boolean expirada(long ttlSegundos) {
+            return System.currentTimeMillis() - creada > ttlSegundos * 1000;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.stepup.shoes.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración del catálogo (prefijo "catalogo" en application.properties).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "catalogo")
+public class CatalogoProperties {
+
+    // Rangos de precio del filtro lateral; se pueden redefinir con catalogo.rangos-precio[n].*
+    private List<RangoPrecio> rangosPrecio = new ArrayList<>(List.of(
+            new RangoPrecio("0-50", "$0 - $50", 0.0, 50.0),
+            new RangoPrecio("50-100", "$50 - $100", 50.0, 100.0),
+            new RangoPrecio("100+", "+$100", 100.0, null)
+    ));
+
+    public RangoPrecio buscarRango(String clave) {
+        if (clave == null) {
+            return null;
+        }
+        return rangosPrecio.stream()
+                .filter(r -> clave.equals(r.getClave()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Rango inclusivo [minimo, maximo]; maximo null significa sin tope.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RangoPrecio {
+
+        private String clave;
+
+        private String etiqueta;
+
+        private Double minimo;
+
+        private Double maximo;
+
+        public double minimoEfectivo() {
+            return minimo != null ? minimo : 0.0;
+        }
+
+        public double maximoEfectivo() {
+            return maximo != null ? maximo : Double.MAX_VALUE;
+        }
+
+        public boolean contiene(double precio) {
+            return precio >= minimoEfectivo() && precio <= maximoEfectivo();
+        }
+    }
+}
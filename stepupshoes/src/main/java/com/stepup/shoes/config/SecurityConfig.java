@@ -42,6 +42,7 @@ public class SecurityConfig {
                         "/webjars/**",
                         "/favicon.ico"
                 ).permitAll()
+                .requestMatchers("/admin/**").hasAnyRole("ADMINISTRADOR", "EMPLEADO")
                 .anyRequest().authenticated()
             )
             .formLogin(form -> form
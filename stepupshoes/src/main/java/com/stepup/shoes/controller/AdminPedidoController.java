@@ -0,0 +1,74 @@
+package com.stepup.shoes.controller;
+
+import com.stepup.shoes.dto.CambioEstadoPedidos;
+import com.stepup.shoes.dto.ResultadoCambioEstado;
+import com.stepup.shoes.model.Pedido;
+import com.stepup.shoes.service.ExportadorPedidos;
+import com.stepup.shoes.service.PedidoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/pedidos")
+public class AdminPedidoController {
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ExportadorPedidos exportadorPedidos;
+
+    /**
+     * Cambiar el estado de varios pedidos (preparación y envío).
+     * Devuelve un resultado por pedido: los que no estaban en el estado
+     * anterior permitido se informan sin cambiar.
+     */
+    @PostMapping("/estado")
+    public ResponseEntity<?> cambiarEstado(@RequestBody CambioEstadoPedidos cambio) {
+        if (cambio.getEstado() == null || cambio.getIds() == null || cambio.getIds().isEmpty()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("success", false, "message", "Se requieren ids y estado"));
+        }
+
+        List<ResultadoCambioEstado> resultados = pedidoService.cambiarEstado(cambio.getIds(), cambio.getEstado());
+        long aplicados = resultados.stream().filter(ResultadoCambioEstado::isAplicado).count();
+
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "aplicados", aplicados,
+            "resultados", resultados
+        ));
+    }
+
+    /**
+     * Exportar pedidos con sus líneas (formato CSV o NDJSON), filtrando por
+     * fechas de creación (inclusivas) y estado. Se escribe a medida que se lee.
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "CSV") ExportadorPedidos.Formato formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Pedido.EstadoPedido estado) {
+
+        boolean csv = formato == ExportadorPedidos.Formato.CSV;
+        String archivo = "pedidos." + (csv ? "csv" : "ndjson");
+        StreamingResponseBody cuerpo = salida -> exportadorPedidos.exportar(salida, formato, desde, hasta, estado);
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo + "\"")
+            .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                             : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+            .body(cuerpo);
+    }
+}
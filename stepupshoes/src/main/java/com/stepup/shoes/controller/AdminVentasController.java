@@ -0,0 +1,50 @@
+package com.stepup.shoes.controller;
+
+import com.stepup.shoes.dto.FilaVentas;
+import com.stepup.shoes.model.Pedido;
+import com.stepup.shoes.service.VentasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/ventas")
+public class AdminVentasController {
+
+    @Autowired
+    private VentasService ventasService;
+
+    /**
+     * Ventas entre dos fechas agrupadas por día, producto o categoría
+     * (lee solo los acumulados de ventas_rollup).
+     */
+    @GetMapping
+    public ResponseEntity<?> consultar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "dia") String agrupacion,
+            @RequestParam(required = false) Pedido.EstadoPedido estado) {
+
+        try {
+            List<FilaVentas> filas = ventasService.consultar(desde, hasta, agrupacion, estado);
+            return ResponseEntity.ok(Map.of("success", true, "filas", filas));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Recalcular los acumulados desde el historial de pedidos
+     */
+    @PostMapping("/reconstruir")
+    public ResponseEntity<?> reconstruir() {
+        int tramos = ventasService.reconstruir();
+        return ResponseEntity.ok(Map.of("success", true, "tramos", tramos));
+    }
+}
@@ -1,6 +1,11 @@
 package com.stepup.shoes.controller;
 
+import com.stepup.shoes.model.Carrito;
+import com.stepup.shoes.model.LineaCarrito;
 import com.stepup.shoes.model.Producto;
+import com.stepup.shoes.model.ProductoTalla;
+import com.stepup.shoes.service.CarritoService;
+import com.stepup.shoes.service.InventarioService;
 import com.stepup.shoes.service.ProductoService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,9 +13,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Controller
@@ -20,6 +23,12 @@ public class CarritoController {
     @Autowired
     private ProductoService productoService;
 
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private InventarioService inventarioService;
+
     // ===================================
     // AGREGAR AL CARRITO
     // ===================================
@@ -27,7 +36,7 @@ public class CarritoController {
     @ResponseBody
     public Map<String, Object> agregarAlCarrito(
             @RequestParam Long productoId,
-            @RequestParam Integer talla,
+            @RequestParam(required = false) Integer talla,
             @RequestParam Integer cantidad,
             HttpSession session) {
 
@@ -39,71 +48,86 @@ public class CarritoController {
             return response;
         }
 
-        Producto producto = productoService.findById(productoId);
-        if (producto == null) {
+        if (cantidad == null || cantidad < 1) {
             response.put("success", false);
-            response.put("message", "Producto no encontrado");
+            response.put("message", "Cantidad no válida");
             return response;
         }
 
-        if (producto.getStock() < cantidad) {
+        Producto producto = productoService.findById(productoId);
+        if (producto == null) {
             response.put("success", false);
-            response.put("message", "Stock insuficiente");
+            response.put("message", "Producto no encontrado");
             return response;
         }
 
-        List<Map<String, Object>> carrito = obtenerCarrito(session);
-
-        boolean encontrado = false;
-        for (Map<String, Object> item : carrito) {
-            if (item.get("productoId").equals(productoId) &&
-                item.get("talla").equals(talla)) {
+        // Desde el listado no se elige talla: se usa la primera con stock suficiente
+        if (talla == null) {
+            talla = primeraTallaDisponible(producto, cantidad);
+            if (talla == null) {
+                response.put("success", false);
+                response.put("message", "Producto sin stock disponible");
+                return response;
+            }
+        }
 
-                int nuevaCantidad = (Integer) item.get("cantidad") + cantidad;
+        Carrito carrito = carritoService.obtener(session);
 
-                if (nuevaCantidad > 5) {
-                    response.put("success", false);
-                    response.put("message", "Máximo 5 unidades por producto");
-                    return response;
-                }
+        LineaCarrito linea = carrito.buscar(productoId, talla);
+        int nuevaCantidad = (linea != null ? linea.getCantidad() : 0) + cantidad;
+        if (nuevaCantidad > Carrito.MAX_UNIDADES_POR_LINEA) {
+            response.put("success", false);
+            response.put("message", "Máximo 5 unidades por producto");
+            return response;
+        }
 
-                item.put("cantidad", nuevaCantidad);
-                encontrado = true;
-                break;
-            }
+        // Descuento atómico del stock: si otro comprador se llevó las últimas unidades, falla aquí
+        if (!inventarioService.reservar(carritoService.propietario(session), productoId, talla, cantidad)) {
+            response.put("success", false);
+            response.put("message", "Stock insuficiente en talla " + talla);
+            return response;
         }
 
-        if (!encontrado) {
-            Map<String, Object> nuevoItem = new HashMap<>();
-            nuevoItem.put("productoId", productoId);
-            nuevoItem.put("nombre", producto.getNombre());
-            nuevoItem.put("precio", producto.getPrecio());
-            nuevoItem.put("imagen", producto.getImagenUrl());
-            nuevoItem.put("talla", talla);
-            nuevoItem.put("cantidad", cantidad);
-            nuevoItem.put("stock", producto.getStock());
-            carrito.add(nuevoItem);
+        if (linea != null) {
+            carrito.cambiarCantidad(linea, nuevaCantidad);
+        } else {
+            carrito.agregar(LineaCarrito.de(producto, talla, cantidad));
         }
 
-        session.setAttribute("carrito", carrito);
+        carritoService.guardar(session, carrito);
 
         response.put("success", true);
         response.put("message", "Producto agregado al carrito");
-        response.put("carritoCount", carrito.size());
+        response.put("carritoCount", carrito.getCantidadLineas());
         return response;
     }
 
+    private Integer primeraTallaDisponible(Producto producto, int cantidad) {
+        for (ProductoTalla t : producto.getTallas()) {
+            int stockTabla = t.getStock() != null ? t.getStock() : 0;
+            if (inventarioService.stockLibre(producto.getId(), t.getTalla(), stockTabla) >= cantidad) {
+                return t.getTalla();
+            }
+        }
+        return null;
+    }
+
     // ===================================
     // VER CARRITO
     // ===================================
     @GetMapping("/ver")
     public String verCarrito(Model model, HttpSession session) {
-        List<Map<String, Object>> carrito = obtenerCarrito(session);
+        Carrito carrito = carritoService.obtener(session);
+        Map<Long, String> cambios = carritoService.revalidar(session, carrito);
 
-        model.addAttribute("carrito", carrito);
+        model.addAttribute("carrito", carrito.getLineas());
+        // Los cambios detectados al procesar el pedido llegan como atributo flash
+        if (!cambios.isEmpty() || !model.containsAttribute("cambiosCarrito")) {
+            model.addAttribute("cambiosCarrito", cambios);
+        }
         model.addAttribute("titulo", "Carrito de Compras - StepUp Shoes");
 
-        double subtotal = calcularSubtotal(carrito);
+        double subtotal = carrito.getSubtotal();
         double envio = subtotal >= 100 ? 0 : 10;
         double total = subtotal + envio;
 
@@ -127,8 +151,9 @@ public class CarritoController {
             HttpSession session,
             Model model) {
 
-        // Vaciar carrito
-        session.removeAttribute("carrito");
+        // Vaciar carrito (aquí no se registra pedido: las unidades reservadas vuelven al stock)
+        inventarioService.liberarTodo(carritoService.propietario(session));
+        carritoService.vaciar(session);
 
         model.addAttribute("mensaje", "Compra realizada con éxito");
         model.addAttribute("nombre", nombre);
@@ -147,29 +172,35 @@ public class CarritoController {
             HttpSession session) {
 
         Map<String, Object> response = new HashMap<>();
-        List<Map<String, Object>> carrito = obtenerCarrito(session);
+        Carrito carrito = carritoService.obtener(session);
 
-        if (index >= 0 && index < carrito.size()) {
-            Map<String, Object> item = carrito.get(index);
-            int nuevaCantidad = (Integer) item.get("cantidad") + cambio;
+        LineaCarrito linea = carrito.linea(index);
+        if (linea != null) {
+            int nuevaCantidad = linea.getCantidad() + cambio;
 
+            String propietario = carritoService.propietario(session);
             if (nuevaCantidad < 1) {
-                carrito.remove(index);
-            } else if (nuevaCantidad > 5) {
+                inventarioService.liberar(propietario, linea.getProductoId(), linea.getTalla(), linea.getCantidad());
+                carrito.eliminar(index);
+            } else if (nuevaCantidad > Carrito.MAX_UNIDADES_POR_LINEA) {
                 response.put("success", false);
                 response.put("message", "Máximo 5 unidades por producto");
                 return response;
-            } else if (nuevaCantidad > (Integer) item.get("stock")) {
+            } else if (cambio > 0
+                    && !inventarioService.reservar(propietario, linea.getProductoId(), linea.getTalla(), cambio)) {
                 response.put("success", false);
                 response.put("message", "Stock insuficiente");
                 return response;
             } else {
-                item.put("cantidad", nuevaCantidad);
+                if (cambio < 0) {
+                    inventarioService.liberar(propietario, linea.getProductoId(), linea.getTalla(), -cambio);
+                }
+                carrito.cambiarCantidad(linea, nuevaCantidad);
             }
 
-            session.setAttribute("carrito", carrito);
+            carritoService.guardar(session, carrito);
             response.put("success", true);
-            response.put("carritoCount", carrito.size());
+            response.put("carritoCount", carrito.getCantidadLineas());
         } else {
             response.put("success", false);
             response.put("message", "Ítem no encontrado");
@@ -185,13 +216,15 @@ public class CarritoController {
             HttpSession session) {
 
         Map<String, Object> response = new HashMap<>();
-        List<Map<String, Object>> carrito = obtenerCarrito(session);
+        Carrito carrito = carritoService.obtener(session);
 
-        if (index >= 0 && index < carrito.size()) {
-            carrito.remove(index);
-            session.setAttribute("carrito", carrito);
+        LineaCarrito linea = carrito.eliminar(index);
+        if (linea != null) {
+            inventarioService.liberar(carritoService.propietario(session),
+                    linea.getProductoId(), linea.getTalla(), linea.getCantidad());
+            carritoService.guardar(session, carrito);
             response.put("success", true);
-            response.put("carritoCount", carrito.size());
+            response.put("carritoCount", carrito.getCantidadLineas());
         } else {
             response.put("success", false);
             response.put("message", "Ítem no encontrado");
@@ -203,7 +236,8 @@ public class CarritoController {
     @PostMapping("/vaciar")
     @ResponseBody
     public Map<String, Object> vaciar(HttpSession session) {
-        session.removeAttribute("carrito");
+        inventarioService.liberarTodo(carritoService.propietario(session));
+        carritoService.vaciar(session);
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -214,27 +248,12 @@ public class CarritoController {
     @GetMapping("/contador")
     @ResponseBody
     public Map<String, Object> contador(HttpSession session) {
-        List<Map<String, Object>> carrito = obtenerCarrito(session);
+        Carrito carrito = carritoService.obtener(session);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("count", carrito.size());
-        response.put("totalItems",
-                carrito.stream().mapToInt(i -> (Integer) i.get("cantidad")).sum());
+        response.put("count", carrito.getCantidadLineas());
+        response.put("totalItems", carrito.getTotalUnidades());
 
         return response;
     }
-
-    // ===================================
-    // AUXILIARES
-    // ===================================
-    private List<Map<String, Object>> obtenerCarrito(HttpSession session) {
-        List<Map<String, Object>> carrito = (List<Map<String, Object>>) session.getAttribute("carrito");
-        return carrito != null ? carrito : new ArrayList<>();
-    }
-
-    private double calcularSubtotal(List<Map<String, Object>> carrito) {
-        return carrito.stream()
-                .mapToDouble(item -> (Double) item.get("precio") * (Integer) item.get("cantidad"))
-                .sum();
-    }
 }
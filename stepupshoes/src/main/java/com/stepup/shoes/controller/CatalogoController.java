@@ -1,122 +1,130 @@
 package com.stepup.shoes.controller;
 
+import com.stepup.shoes.config.CatalogoProperties;
+import com.stepup.shoes.dto.FiltroCatalogo;
+import com.stepup.shoes.instrumentacion.Instrumentacion;
+import com.stepup.shoes.dto.PaginaCatalogo;
 import com.stepup.shoes.model.Categoria;
 import com.stepup.shoes.model.Producto;
 import com.stepup.shoes.service.CategoriaService;
+import com.stepup.shoes.service.ImagenUrlResolver;
+import com.stepup.shoes.service.InventarioService;
 import com.stepup.shoes.service.ProductoService;
+import com.stepup.shoes.service.VersionCatalogo;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/catalogo")
 public class CatalogoController {
 
+    private static final Logger log = LoggerFactory.getLogger(CatalogoController.class);
+
     @Autowired
     private ProductoService productoService;
 
     @Autowired
     private CategoriaService categoriaService;
 
+    @Autowired
+    private ImagenUrlResolver imagenUrlResolver;
+
+    @Autowired
+    private Instrumentacion instrumentacion;
+
+    @Autowired
+    private CatalogoProperties catalogoProperties;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    @Autowired
+    private InventarioService inventarioService;
+
     @GetMapping
     public String mostrarCatalogo(
             @RequestParam(required = false) String categoria,
             @RequestParam(required = false) String rangoPrecio,
             @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer talla,
+            WebRequest webRequest,
+            HttpServletResponse response,
             Model model) {
 
-        List<Producto> productos = aplicarFiltrosYOrdenamiento(categoria, rangoPrecio, orden);
+        // 304 si el navegador ya tiene esta versión del catálogo
+        if (versionCatalogo.noModificado(webRequest, response)) {
+            return null;
+        }
+
+        FiltroCatalogo filtro = new FiltroCatalogo(categoria, rangoPrecio, orden, cursor, talla);
+        PaginaCatalogo pagina = instrumentacion.medir("stepup.catalogo.filtrado",
+                () -> productoService.buscarCatalogo(filtro));
+        List<Producto> productos = pagina.getProductos();
         
-        // ✅ DEBUG: Mostrar URLs generadas en consola
-        System.out.println("\n=== DEBUG FIREBASE IMAGES ===");
-        System.out.println("Total productos: " + productos.size());
-        for (Producto p : productos) {
-            System.out.println("ID: " + p.getId() + 
-                             " | Nombre: " + p.getNombre() + 
-                             " | imagenUrl: '" + p.getImagenUrl() + "'" +
-                             " | Ruta Firebase: " + p.getRutaImagenCompleta());
+        // Traza de depuración solo para peticiones muestreadas o con cabecera X-Debug-Trace
+        if (instrumentacion.trazaActiva()) {
+            log.info("Catálogo: {} productos", productos.size());
+            for (Producto p : productos) {
+                log.info("ID: {} | Nombre: {} | imagenUrl: '{}' | Ruta Firebase: {}",
+                        p.getId(), p.getNombre(), p.getImagenUrl(),
+                        imagenUrlResolver.urlProducto(p.getImagenUrl()));
+            }
         }
-        System.out.println("=== FIN DEBUG ===\n");
 
         model.addAttribute("productos", productos);
         model.addAttribute("categorias", categoriaService.findAll());
+        model.addAttribute("rangosPrecio", catalogoProperties.getRangosPrecio());
+        model.addAttribute("tallas", productoService.tallasDisponibles());
+        model.addAttribute("facetas", instrumentacion.medir("stepup.catalogo.facetas",
+                () -> productoService.calcularFacetas(filtro)));
         model.addAttribute("categoriaSeleccionada", categoria);
         model.addAttribute("precioSeleccionado", rangoPrecio);
         model.addAttribute("ordenSeleccionado", orden);
+        model.addAttribute("tallaSeleccionada", talla);
+        model.addAttribute("siguienteCursor", pagina.getSiguienteCursor());
         model.addAttribute("titulo", "Catálogo - StepUp Shoes");
 
         return "catalogo";
     }
 
     @GetMapping("/producto/{id}")
-    public String verProducto(@PathVariable Long id, Model model) {
-        Producto producto = productoService.findById(id);
+    public String verProducto(@PathVariable Long id, WebRequest webRequest,
+                              HttpServletResponse response, Model model) {
+        if (versionCatalogo.noModificado(webRequest, response)) {
+            return null;
+        }
+
+        Producto producto = productoService.findDetalleById(id);
         if (producto == null) return "redirect:/catalogo";
         
-        // ✅ DEBUG para producto individual
-        System.out.println("\n=== DEBUG PRODUCTO INDIVIDUAL ===");
-        System.out.println(producto.getInfoRutaImagen());
-        System.out.println("=== FIN DEBUG ===\n");
+        if (instrumentacion.trazaActiva()) {
+            log.info(producto.getInfoRutaImagen());
+        }
 
         model.addAttribute("producto", producto);
         return "producto-detalle";
     }
 
-    private List<Producto> aplicarFiltrosYOrdenamiento(String categoria, String rangoPrecio, String orden) {
-        List<Producto> productos = productoService.findAll();
-
-        // FILTRAR CATEGORÍA
-        if (categoria != null && !categoria.isEmpty()) {
-            productos = productos.stream()
-                    .filter(p -> p.getCategoria() != null && 
-                                 p.getCategoria().getNombre().equalsIgnoreCase(categoria))
-                    .collect(Collectors.toList());
-        }
-
-        // FILTRAR PRECIO
-        if (rangoPrecio != null && !rangoPrecio.isEmpty()) {
-            Double[] r = switch (rangoPrecio) {
-                case "0-50" -> new Double[]{0.0, 50.0};
-                case "50-100" -> new Double[]{50.0, 100.0};
-                case "100+" -> new Double[]{100.0, 999999.0};
-                default -> new Double[]{0.0, 999999.0};
-            };
-
-            productos = productos.stream()
-                    .filter(p -> p.getPrecio() != null && p.getPrecio() >= r[0] && p.getPrecio() <= r[1])
-                    .collect(Collectors.toList());
-        }
-
-        // ORDENAMIENTO
-        if (orden != null && !orden.isEmpty()) {
-            productos = switch (orden) {
-                case "precio-asc" ->
-                    productos.stream()
-                            .sorted(Comparator.comparing(Producto::getPrecio, 
-                                    Comparator.nullsLast(Comparator.naturalOrder())))
-                            .toList();
-
-                case "precio-desc" ->
-                    productos.stream()
-                            .sorted(Comparator.comparing(Producto::getPrecio, 
-                                    Comparator.nullsLast(Comparator.naturalOrder())).reversed())
-                            .toList();
-
-                case "nombre-asc" ->
-                    productos.stream()
-                            .sorted(Comparator.comparing(Producto::getNombre, 
-                                    Comparator.nullsLast(Comparator.naturalOrder())))
-                            .toList();
-
-                default -> productos;
-            };
-        }
-
-        return productos;
+    // El stock cambia con cada reserva y compra, así que no va en el HTML del detalle
+    // (que se cachea y se valida con la versión del catálogo): la página lo pide aquí.
+    @GetMapping("/stock/{id}")
+    @ResponseBody
+    public Map<String, Object> stockProducto(@PathVariable Long id, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("stock", inventarioService.stockDisponible(id));
+        return resultado;
     }
-}
\ No newline at end of file
+}
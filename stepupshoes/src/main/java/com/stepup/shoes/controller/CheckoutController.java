@@ -4,21 +4,26 @@
  */
 package com.stepup.shoes.controller;
 
+import com.stepup.shoes.dto.PaginaPedidos;
+import com.stepup.shoes.instrumentacion.Instrumentacion;
 import com.stepup.shoes.model.*;
+import com.stepup.shoes.service.CarritoService;
+import com.stepup.shoes.service.GeneradorNumeroPedido;
+import com.stepup.shoes.service.IdempotenciaCheckout;
 import com.stepup.shoes.service.PedidoService;
 import com.stepup.shoes.service.UsuarioService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/checkout")
@@ -30,6 +35,18 @@ public class CheckoutController {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private CarritoService carritoService;
+
+    @Autowired
+    private Instrumentacion instrumentacion;
+
+    @Autowired
+    private GeneradorNumeroPedido generadorNumeroPedido;
+
+    @Autowired
+    private IdempotenciaCheckout idempotenciaCheckout;
+
     @GetMapping
     public String mostrarCheckout(Model model, HttpSession session) {
         // Verificar autenticación
@@ -39,8 +56,9 @@ public class CheckoutController {
         }
 
         // Verificar que el carrito no esté vacío
-        List<Map<String, Object>> carrito = obtenerCarrito(session);
-        if (carrito.isEmpty()) {
+        Carrito carrito = carritoService.obtener(session);
+        Map<Long, String> cambios = carritoService.revalidar(session, carrito);
+        if (carrito.isVacio()) {
             return "redirect:/carrito/ver";
         }
 
@@ -54,15 +72,21 @@ public class CheckoutController {
         Usuario usuario = usuarioOpt.get();
 
         // Calcular totales
-        double subtotal = calcularSubtotal(carrito);
+        double subtotal = carrito.getSubtotal();
         double envio = subtotal >= 100 ? 0 : 10;
         double total = subtotal + envio;
 
         model.addAttribute("usuario", usuario);
-        model.addAttribute("carrito", carrito);
+        model.addAttribute("carrito", carrito.getLineas());
+        // Los cambios detectados al procesar el pedido llegan como atributo flash
+        if (!cambios.isEmpty() || !model.containsAttribute("cambiosCarrito")) {
+            model.addAttribute("cambiosCarrito", cambios);
+        }
         model.addAttribute("subtotal", subtotal);
         model.addAttribute("envio", envio);
         model.addAttribute("total", total);
+        // Identifica este envío del formulario: los reenvíos no registran otro pedido
+        model.addAttribute("claveIdempotencia", UUID.randomUUID().toString());
         model.addAttribute("titulo", "Checkout - StepUp Shoes");
 
         return "checkout";
@@ -79,6 +103,7 @@ public class CheckoutController {
             @RequestParam String codigoPostal,
             @RequestParam String metodoEnvio,
             @RequestParam String metodoPago,
+            @RequestParam(required = false) String claveIdempotencia,
             HttpSession session,
             RedirectAttributes redirectAttributes) {
 
@@ -88,50 +113,60 @@ public class CheckoutController {
             return "redirect:/auth/login";
         }
 
-        // Verificar carrito
-        List<Map<String, Object>> carrito = obtenerCarrito(session);
-        if (carrito.isEmpty()) {
-            redirectAttributes.addFlashAttribute("error", "El carrito está vacío");
-            return "redirect:/carrito/ver";
-        }
-
-        // Obtener usuario
-        Optional<Usuario> usuarioOpt = usuarioService.findById(usuarioId);
-        if (usuarioOpt.isEmpty()) {
-            session.invalidate();
-            return "redirect:/auth/login";
+        // Reenvío del mismo formulario (doble clic, recarga): se muestra el pedido ya registrado
+        String clave = claveIdempotencia != null && !claveIdempotencia.isBlank() ? claveIdempotencia : null;
+        if (clave != null) {
+            Optional<Long> previo;
+            try {
+                previo = idempotenciaCheckout.reclamar(clave, usuarioId);
+            } catch (IllegalStateException e) {
+                redirectAttributes.addFlashAttribute("error", e.getMessage());
+                return "redirect:/checkout";
+            }
+            if (previo.isPresent()) {
+                return mostrarPedidoPrevio(previo.get(), usuarioId, nombreCompleto, direccion, ciudad, estado,
+                        metodoEnvio, metodoPago, redirectAttributes);
+            }
         }
 
+        Pedido pedidoGuardado = null;
         try {
+            // Verificar carrito
+            Carrito carrito = carritoService.obtener(session);
+            if (carrito.isVacio()) {
+                redirectAttributes.addFlashAttribute("error", "El carrito está vacío");
+                return "redirect:/carrito/ver";
+            }
+
+            // Si algún precio o stock cambió desde que se mostró el resumen, se vuelve a mostrar
+            Map<Long, String> cambios = carritoService.revalidar(session, carrito);
+            if (!cambios.isEmpty()) {
+                redirectAttributes.addFlashAttribute("cambiosCarrito", cambios);
+                return carrito.isVacio() ? "redirect:/carrito/ver" : "redirect:/checkout";
+            }
+
+            // Obtener usuario
+            Optional<Usuario> usuarioOpt = usuarioService.findById(usuarioId);
+            if (usuarioOpt.isEmpty()) {
+                session.invalidate();
+                return "redirect:/auth/login";
+            }
+
             // Crear pedido
             Pedido pedido = new Pedido();
             pedido.setUsuario(usuarioOpt.get());
-            pedido.setNumeroPedido(generarNumeroPedido());
+            pedido.setNumeroPedido(generadorNumeroPedido.siguienteNumero());
+            pedido.setClaveIdempotencia(clave);
             pedido.setTotal(calcularTotal(carrito, metodoEnvio));
             pedido.setEstado(Pedido.EstadoPedido.PENDIENTE);
             pedido.setFechaCreacion(LocalDateTime.now());
 
-            // Crear detalles del pedido
-            List<DetallePedido> detalles = new ArrayList<>();
-            for (Map<String, Object> item : carrito) {
-                DetallePedido detalle = new DetallePedido();
-                detalle.setPedido(pedido);
-                
-                // En una implementación real, aquí se obtendría el producto de la base de datos
-                // Por ahora usamos datos del carrito
-                detalle.setCantidad((Integer) item.get("cantidad"));
-                detalle.setPrecio((Double) item.get("precio"));
-                detalle.setTalla((Integer) item.get("talla"));
-                
-                detalles.add(detalle);
-            }
-            pedido.setDetalles(detalles);
-
-            // Guardar pedido
-            Pedido pedidoGuardado = pedidoService.save(pedido);
+            // Guardar pedido con sus detalles y confirmar las unidades reservadas del carrito
+            pedidoGuardado = instrumentacion.medir("stepup.checkout.registrar",
+                    () -> pedidoService.registrarPedido(pedido, carrito, carritoService.propietario(session)));
 
             // Limpiar carrito
-            session.removeAttribute("carrito");
+            carritoService.vaciar(session);
 
             // Preparar datos para la confirmación
             redirectAttributes.addFlashAttribute("pedido", pedidoGuardado);
@@ -142,12 +177,47 @@ public class CheckoutController {
 
             return "redirect:/checkout/confirmacion";
 
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia registró el pedido con esta clave al mismo tiempo
+            Optional<Long> previo = clave != null
+                    ? pedidoService.findIdByClaveIdempotencia(clave, usuarioId) : Optional.empty();
+            if (previo.isPresent()) {
+                return mostrarPedidoPrevio(previo.get(), usuarioId, nombreCompleto, direccion, ciudad, estado,
+                        metodoEnvio, metodoPago, redirectAttributes);
+            }
+            redirectAttributes.addFlashAttribute("error", "Error al procesar el pedido: " + e.getMessage());
+            return "redirect:/checkout";
+
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Error al procesar el pedido: " + e.getMessage());
             return "redirect:/checkout";
+
+        } finally {
+            if (clave != null) {
+                if (pedidoGuardado != null) {
+                    idempotenciaCheckout.completar(clave, pedidoGuardado.getId());
+                } else {
+                    idempotenciaCheckout.cancelar(clave);
+                }
+            }
         }
     }
 
+    private String mostrarPedidoPrevio(Long pedidoId, Long usuarioId, String nombreCompleto, String direccion,
+                                       String ciudad, String estado, String metodoEnvio, String metodoPago,
+                                       RedirectAttributes redirectAttributes) {
+        Optional<Pedido> pedidoOpt = pedidoService.findDetalleDeUsuario(pedidoId, usuarioId);
+        if (pedidoOpt.isEmpty()) {
+            return "redirect:/checkout/pedidos";
+        }
+        redirectAttributes.addFlashAttribute("pedido", pedidoOpt.get());
+        redirectAttributes.addFlashAttribute("nombreCliente", nombreCompleto);
+        redirectAttributes.addFlashAttribute("direccionEnvio", direccion + ", " + ciudad + ", " + estado);
+        redirectAttributes.addFlashAttribute("metodoEnvio", metodoEnvio);
+        redirectAttributes.addFlashAttribute("metodoPago", metodoPago);
+        return "redirect:/checkout/confirmacion";
+    }
+
     @GetMapping("/confirmacion")
     public String mostrarConfirmacion(Model model, HttpSession session) {
         // Verificar que hay un pedido en los flash attributes
@@ -160,7 +230,7 @@ public class CheckoutController {
     }
 
     @GetMapping("/pedidos")
-    public String verPedidos(Model model, HttpSession session) {
+    public String verPedidos(@RequestParam(required = false) String cursor, Model model, HttpSession session) {
         Long usuarioId = (Long) session.getAttribute("usuarioId");
         if (usuarioId == null) {
             return "redirect:/auth/login";
@@ -172,8 +242,9 @@ public class CheckoutController {
             return "redirect:/auth/login";
         }
 
-        List<Pedido> pedidos = pedidoService.findByUsuario(usuarioOpt.get());
-        model.addAttribute("pedidos", pedidos);
+        PaginaPedidos pagina = pedidoService.historial(usuarioId, cursor);
+        model.addAttribute("pedidos", pagina.getPedidos());
+        model.addAttribute("siguienteCursor", pagina.getSiguienteCursor());
         model.addAttribute("titulo", "Mis Pedidos - StepUp Shoes");
 
         return "mis-pedidos";
@@ -186,18 +257,13 @@ public class CheckoutController {
             return "redirect:/auth/login";
         }
 
-        Optional<Pedido> pedidoOpt = pedidoService.findById(id);
+        // Pedido, líneas y productos en una consulta; vacío si no existe o es de otro usuario
+        Optional<Pedido> pedidoOpt = pedidoService.findDetalleDeUsuario(id, usuarioId);
         if (pedidoOpt.isEmpty()) {
             return "redirect:/checkout/pedidos";
         }
 
         Pedido pedido = pedidoOpt.get();
-        
-        // Verificar que el pedido pertenece al usuario
-        if (!pedido.getUsuario().getId().equals(usuarioId)) {
-            return "redirect:/checkout/pedidos";
-        }
-
         model.addAttribute("pedido", pedido);
         model.addAttribute("titulo", "Pedido #" + pedido.getNumeroPedido() + " - StepUp Shoes");
 
@@ -205,25 +271,10 @@ public class CheckoutController {
     }
 
     // Métodos auxiliares
-    private List<Map<String, Object>> obtenerCarrito(HttpSession session) {
-        List<Map<String, Object>> carrito = (List<Map<String, Object>>) session.getAttribute("carrito");
-        return carrito != null ? carrito : new ArrayList<>();
-    }
-
-    private double calcularSubtotal(List<Map<String, Object>> carrito) {
-        return carrito.stream()
-                .mapToDouble(item -> (Double) item.get("precio") * (Integer) item.get("cantidad"))
-                .sum();
-    }
-
-    private double calcularTotal(List<Map<String, Object>> carrito, String metodoEnvio) {
-        double subtotal = calcularSubtotal(carrito);
+    private double calcularTotal(Carrito carrito, String metodoEnvio) {
+        double subtotal = carrito.getSubtotal();
         double envio = "express".equals(metodoEnvio) ? 20 : 
                       "gratis".equals(metodoEnvio) ? 0 : 10;
         return subtotal + envio;
     }
-
-    private String generarNumeroPedido() {
-        return "PED" + System.currentTimeMillis();
-    }
 }
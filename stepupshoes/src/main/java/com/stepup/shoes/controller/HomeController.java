@@ -6,6 +6,8 @@ package com.stepup.shoes.controller;
 
 import com.stepup.shoes.model.Producto;
 import com.stepup.shoes.service.ProductoService;
+import com.stepup.shoes.service.VersionCatalogo;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import java.util.List;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 @Controller
 public class HomeController {
@@ -20,8 +23,16 @@ public class HomeController {
     @Autowired
     private ProductoService productoService;
 
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
     @GetMapping("/")
-    public String home(Model model) {
+    public String home(WebRequest webRequest, HttpServletResponse response, Model model) {
+        // Los destacados solo cambian con el catálogo: 304 si no hubo cambios
+        if (versionCatalogo.noModificado(webRequest, response)) {
+            return null;
+        }
+
         List<Producto> productosDestacados = productoService.obtenerDestacados();
         model.addAttribute("productosDestacados", productosDestacados);
         model.addAttribute("titulo", "StepUp Shoes - Encuentra tu Estilo Perfecto");
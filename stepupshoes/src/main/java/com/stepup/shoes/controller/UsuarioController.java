@@ -4,6 +4,8 @@
  */
 package com.stepup.shoes.controller;
 
+import com.stepup.shoes.dto.PaginaPedidos;
+import com.stepup.shoes.dto.ResultadoCambioEstado;
 import com.stepup.shoes.model.Pedido;
 import com.stepup.shoes.model.Usuario;
 import com.stepup.shoes.service.PedidoService;
@@ -43,16 +45,17 @@ public class UsuarioController {
         }
 
         Usuario usuario = usuarioOpt.get();
-        List<Pedido> pedidos = pedidoService.findByUsuario(usuario);
+        // Estadísticas agregadas en la base de datos; la lista muestra solo los pedidos más recientes
+        double[] totales = pedidoService.totales(usuarioId);
 
         // Calcular estadísticas
-        long totalPedidos = pedidos.size();
+        long totalPedidos = (long) totales[0];
         long totalFavoritos = 0; // En una implementación real, esto vendría de un servicio
-        double totalGastado = pedidos.stream().mapToDouble(Pedido::getTotal).sum();
+        double totalGastado = totales[1];
         int puntos = (int) (totalGastado / 10); // 1 punto por cada $10 gastados
 
         model.addAttribute("usuario", usuario);
-        model.addAttribute("pedidos", pedidos);
+        model.addAttribute("pedidos", pedidoService.historial(usuarioId, null).getPedidos());
         model.addAttribute("totalPedidos", totalPedidos);
         model.addAttribute("totalFavoritos", totalFavoritos);
         model.addAttribute("totalGastado", totalGastado);
@@ -95,7 +98,8 @@ public class UsuarioController {
     }
 
     @GetMapping("/pedidos")
-    public String verPedidosUsuario(Model model, HttpSession session) {
+    public String verPedidosUsuario(@RequestParam(required = false) String cursor,
+                                    Model model, HttpSession session) {
         Long usuarioId = (Long) session.getAttribute("usuarioId");
         if (usuarioId == null) {
             return "redirect:/auth/login";
@@ -107,8 +111,9 @@ public class UsuarioController {
             return "redirect:/auth/login";
         }
 
-        List<Pedido> pedidos = pedidoService.findByUsuarioOrderByFechaCreacionDesc(usuarioOpt.get());
-        model.addAttribute("pedidos", pedidos);
+        PaginaPedidos pagina = pedidoService.historial(usuarioId, cursor);
+        model.addAttribute("pedidos", pagina.getPedidos());
+        model.addAttribute("siguienteCursor", pagina.getSiguienteCursor());
         model.addAttribute("titulo", "Mis Pedidos - StepUp Shoes");
 
         return "mis-pedidos";
@@ -125,18 +130,13 @@ public class UsuarioController {
             return "redirect:/auth/login";
         }
 
-        Optional<Pedido> pedidoOpt = pedidoService.findById(pedidoId);
+        // Pedido, líneas y productos en una consulta; vacío si no existe o es de otro usuario
+        Optional<Pedido> pedidoOpt = pedidoService.findDetalleDeUsuario(pedidoId, usuarioId);
         if (pedidoOpt.isEmpty()) {
             return "redirect:/usuario/pedidos";
         }
 
         Pedido pedido = pedidoOpt.get();
-        
-        // Verificar que el pedido pertenece al usuario
-        if (!pedido.getUsuario().getId().equals(usuarioId)) {
-            return "redirect:/usuario/pedidos";
-        }
-
         model.addAttribute("pedido", pedido);
         model.addAttribute("titulo", "Pedido #" + pedido.getNumeroPedido() + " - StepUp Shoes");
 
@@ -167,9 +167,14 @@ public class UsuarioController {
             return "redirect:/usuario/pedidos";
         }
 
-        // Cancelar pedido
-        pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
-        pedidoService.save(pedido);
+        // Cancelar pedido (transición condicional: registra el evento de cambio de estado)
+        ResultadoCambioEstado resultado =
+                pedidoService.cambiarEstado(List.of(pedidoId), Pedido.EstadoPedido.CANCELADO).get(0);
+        if (!resultado.isAplicado()) {
+            // Otro proceso cambió el estado mientras tanto (p. ej. el pedido ya se envió)
+            redirectAttributes.addFlashAttribute("error", "No se pudo cancelar el pedido: " + resultado.getMensaje());
+            return "redirect:/usuario/pedidos";
+        }
 
         redirectAttributes.addFlashAttribute("mensaje", "Pedido cancelado correctamente");
         return "redirect:/usuario/pedidos";
@@ -0,0 +1,16 @@
+package com.stepup.shoes.dto;
+
+import com.stepup.shoes.model.Pedido;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Cuerpo de POST /admin/pedidos/estado: pedidos a mover y estado destino.
+ */
+@Data
+public class CambioEstadoPedidos {
+
+    private List<Long> ids;
+
+    private Pedido.EstadoPedido estado;
+}
@@ -0,0 +1,44 @@
+package com.stepup.shoes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Posición de paginación por keyset: valor de la columna de orden y el id
+ * del último producto mostrado. Se serializa como "valor_id" en la URL.
+ */
+@Data
+@AllArgsConstructor
+public class CursorCatalogo {
+
+    private static final char SEPARADOR = '_';
+
+    private String valor;
+
+    private Long id;
+
+    public String codificar() {
+        return valor == null ? String.valueOf(id) : valor + SEPARADOR + id;
+    }
+
+    /**
+     * Interpreta un cursor recibido por parámetro. Devuelve null si no es válido,
+     * lo que equivale a volver a la primera página.
+     */
+    public static CursorCatalogo decodificar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        try {
+            // El nombre puede contener '_', por eso el id se toma desde el último separador
+            int separador = texto.lastIndexOf(SEPARADOR);
+            if (separador < 0) {
+                return new CursorCatalogo(null, Long.parseLong(texto));
+            }
+            return new CursorCatalogo(texto.substring(0, separador),
+                    Long.parseLong(texto.substring(separador + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.stepup.shoes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Posición en el historial de pedidos (más recientes primero): fecha e id
+ * del último pedido mostrado. Se serializa como "fecha_id" en la URL.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPedidos {
+
+    private static final char SEPARADOR = '_';
+
+    private LocalDateTime fecha;
+
+    private Long id;
+
+    public static CursorPedidos de(ResumenPedido pedido) {
+        return new CursorPedidos(pedido.getFechaCreacion(), pedido.getId());
+    }
+
+    public String codificar() {
+        return fecha.toString() + SEPARADOR + id;
+    }
+
+    /**
+     * Interpreta un cursor recibido por parámetro. Devuelve null si no es válido,
+     * lo que equivale a volver a la primera página.
+     */
+    public static CursorPedidos decodificar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        int separador = texto.lastIndexOf(SEPARADOR);
+        if (separador < 0) {
+            return null;
+        }
+        try {
+            return new CursorPedidos(LocalDateTime.parse(texto.substring(0, separador)),
+                    Long.parseLong(texto.substring(separador + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.stepup.shoes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.Map;
+
+/**
+ * Conteos del filtro lateral del catálogo.
+ *
+ * Cada faceta se cuenta con los demás filtros aplicados pero no el propio:
+ * los conteos por categoría respetan el rango de precio elegido y los
+ * conteos por rango respetan la categoría elegida.
+ */
+@Data
+@AllArgsConstructor
+public class FacetasCatalogo {
+
+    // nombre de categoría -> productos
+    private Map<String, Long> porCategoria;
+
+    // clave del rango de precio -> productos
+    private Map<String, Long> porRangoPrecio;
+}
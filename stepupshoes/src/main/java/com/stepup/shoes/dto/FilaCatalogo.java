@@ -0,0 +1,25 @@
+package com.stepup.shoes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Columnas mínimas de un producto para construir el snapshot del catálogo,
+ * cargadas por proyección sin hidratar entidades.
+ */
+@Data
+@AllArgsConstructor
+public class FilaCatalogo {
+
+    private Long id;
+
+    private String nombre;
+
+    private Double precio;
+
+    private Boolean activo;
+
+    private Long categoriaId;
+
+    private String categoriaNombre;
+}
@@ -0,0 +1,22 @@
+package com.stepup.shoes.dto;
+
+import com.stepup.shoes.model.Pedido;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Una fila del reporte de ventas: valor de la agrupación (día, producto o
+ * categoría), estado de los pedidos, unidades e ingresos.
+ */
+@Data
+@AllArgsConstructor
+public class FilaVentas {
+
+    private String clave;
+
+    private Pedido.EstadoPedido estado;
+
+    private long unidades;
+
+    private double ingresos;
+}
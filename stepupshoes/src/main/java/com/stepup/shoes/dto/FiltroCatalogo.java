@@ -0,0 +1,39 @@
+package com.stepup.shoes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Parámetros de filtrado, orden y paginación del catálogo tal como llegan
+ * desde la vista (/catalogo?categoria=...&rangoPrecio=...&orden=...&cursor=...&talla=...)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroCatalogo {
+
+    private String categoria;
+
+    private String rangoPrecio;
+
+    private String orden;
+
+    // Cursor opaco de la página anterior (null = primera página)
+    private String cursor;
+
+    // Solo productos con stock en esta talla (null = cualquiera)
+    private Integer talla;
+
+    public boolean tieneCategoria() {
+        return categoria != null && !categoria.isBlank();
+    }
+
+    public boolean tieneRangoPrecio() {
+        return rangoPrecio != null && !rangoPrecio.isBlank();
+    }
+
+    public boolean tieneTalla() {
+        return talla != null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.stepup.shoes.dto;
+
+import com.stepup.shoes.model.Producto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Una página del catálogo junto con el cursor para pedir la siguiente.
+ */
+@Data
+@AllArgsConstructor
+public class PaginaCatalogo {
+
+    private List<Producto> productos;
+
+    // null cuando no hay más resultados
+    private String siguienteCursor;
+
+    public boolean isHayMas() {
+        return siguienteCursor != null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.stepup.shoes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Una página del historial de pedidos junto con el cursor para pedir la siguiente.
+ */
+@Data
+@AllArgsConstructor
+public class PaginaPedidos {
+
+    private List<ResumenPedido> pedidos;
+
+    // null cuando no hay más pedidos
+    private String siguienteCursor;
+
+    public boolean isHayMas() {
+        return siguienteCursor != null;
+    }
+}
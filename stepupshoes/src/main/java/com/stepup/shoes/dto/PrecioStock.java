@@ -0,0 +1,24 @@
+package com.stepup.shoes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Precio, stock de una talla y estado actuales de un producto, para revalidar
+ * el carrito sin hidratar entidades. talla y stock son null si el producto no
+ * tiene tallas registradas.
+ */
+@Data
+@AllArgsConstructor
+public class PrecioStock {
+
+    private Long id;
+
+    private Integer talla;
+
+    private Double precio;
+
+    private Integer stock;
+
+    private Boolean activo;
+}
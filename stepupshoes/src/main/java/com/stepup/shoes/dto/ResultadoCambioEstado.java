@@ -0,0 +1,19 @@
+package com.stepup.shoes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Resultado de un cambio de estado en bloque para un pedido.
+ */
+@Data
+@AllArgsConstructor
+public class ResultadoCambioEstado {
+
+    private Long pedidoId;
+
+    private boolean aplicado;
+
+    // Motivo cuando no se aplicó
+    private String mensaje;
+}
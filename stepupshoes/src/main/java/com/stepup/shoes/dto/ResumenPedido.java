@@ -0,0 +1,25 @@
+package com.stepup.shoes.dto;
+
+import com.stepup.shoes.model.Pedido;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Fila del historial de pedidos: solo las columnas que muestra la lista,
+ * sin cargar el usuario ni los detalles del pedido.
+ */
+@Data
+@AllArgsConstructor
+public class ResumenPedido {
+
+    private Long id;
+
+    private String numeroPedido;
+
+    private LocalDateTime fechaCreacion;
+
+    private Double total;
+
+    private Pedido.EstadoPedido estado;
+}
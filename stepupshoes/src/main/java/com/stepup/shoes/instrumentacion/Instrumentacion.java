@@ -0,0 +1,72 @@
+package com.stepup.shoes.instrumentacion;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Punto único para medir tramos del camino crítico y decidir si una petición
+ * lleva traza de depuración.
+ *
+ * La traza reemplaza a los System.out que se imprimían en cada petición: solo
+ * se activa si la petición trae la cabecera configurada o si cae dentro del
+ * porcentaje de muestreo, y se escribe con el logger en lugar de la consola.
+ */
+@Component
+public class Instrumentacion {
+
+    static final String ATRIBUTO_TRAZA = Instrumentacion.class.getName() + ".traza";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // Fracción de peticiones con traza (0.0 = ninguna, 1.0 = todas)
+    @Value("${instrumentacion.traza.muestreo:0.0}")
+    private double muestreo;
+
+    @Value("${instrumentacion.traza.cabecera:X-Debug-Trace}")
+    private String cabecera;
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Ejecuta la operación y registra su duración en el timer indicado.
+     */
+    public <T> T medir(String nombre, Supplier<T> operacion) {
+        Timer.Sample muestra = Timer.start(registry);
+        try {
+            return operacion.get();
+        } finally {
+            muestra.stop(registry.timer(nombre));
+        }
+    }
+
+    /**
+     * Decide una sola vez por petición si lleva traza y lo deja como atributo.
+     */
+    void decidirTraza(HttpServletRequest request) {
+        boolean activa = "true".equalsIgnoreCase(request.getHeader(cabecera))
+                || "1".equals(request.getHeader(cabecera))
+                || (muestreo > 0 && ThreadLocalRandom.current().nextDouble() < muestreo);
+        request.setAttribute(ATRIBUTO_TRAZA, activa);
+    }
+
+    /**
+     * Indica si la petición en curso tiene la traza de depuración activa.
+     */
+    public boolean trazaActiva() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        return atributos != null
+                && Boolean.TRUE.equals(atributos.getAttribute(ATRIBUTO_TRAZA, RequestAttributes.SCOPE_REQUEST));
+    }
+}
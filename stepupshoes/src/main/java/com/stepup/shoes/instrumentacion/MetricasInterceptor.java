@@ -0,0 +1,85 @@
+package com.stepup.shoes.instrumentacion;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide por separado el tiempo de cada método de controlador ("stepup.controlador")
+ * y el del render de la plantilla que devuelve ("stepup.render").
+ */
+@Component
+public class MetricasInterceptor implements HandlerInterceptor {
+
+    private static final String INICIO = MetricasInterceptor.class.getName() + ".inicio";
+    private static final String INICIO_RENDER = MetricasInterceptor.class.getName() + ".inicioRender";
+    private static final String VISTA = MetricasInterceptor.class.getName() + ".vista";
+
+    @Autowired
+    private Instrumentacion instrumentacion;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(INICIO, System.nanoTime());
+            instrumentacion.decidirTraza(request);
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        if (!(handler instanceof HandlerMethod metodo) || request.getAttribute(INICIO) == null) {
+            return;
+        }
+        long ahora = System.nanoTime();
+        registrarControlador(metodo, (Long) request.getAttribute(INICIO), ahora, "ninguna");
+        request.removeAttribute(INICIO);
+
+        if (modelAndView != null && modelAndView.getViewName() != null
+                && !modelAndView.getViewName().startsWith("redirect:")) {
+            request.setAttribute(INICIO_RENDER, ahora);
+            request.setAttribute(VISTA, modelAndView.getViewName());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(handler instanceof HandlerMethod metodo)) {
+            return;
+        }
+        long ahora = System.nanoTime();
+
+        // Si el controlador lanzó una excepción no hubo postHandle
+        Object inicio = request.getAttribute(INICIO);
+        if (inicio != null) {
+            registrarControlador(metodo, (Long) inicio, ahora, ex != null ? ex.getClass().getSimpleName() : "ninguna");
+        }
+
+        Object inicioRender = request.getAttribute(INICIO_RENDER);
+        if (inicioRender != null) {
+            Timer.builder("stepup.render")
+                    .tag("vista", (String) request.getAttribute(VISTA))
+                    .register(instrumentacion.getRegistry())
+                    .record(ahora - (Long) inicioRender, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void registrarControlador(HandlerMethod metodo, long inicio, long fin, String excepcion) {
+        Timer.builder("stepup.controlador")
+                .tag("clase", metodo.getBeanType().getSimpleName())
+                .tag("metodo", metodo.getMethod().getName())
+                .tag("excepcion", excepcion)
+                .register(instrumentacion.getRegistry())
+                .record(fin - inicio, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,179 @@
+package com.stepup.shoes.model;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carrito de compras guardado en la sesión.
+ *
+ * Las líneas se mantienen en orden de inserción (las vistas y los endpoints
+ * trabajan por índice) y además indexadas por (productoId, talla) para que
+ * buscar una línea sea O(1). La serialización escribe solo los campos de cada
+ * línea, sin el índice, que se reconstruye al leer.
+ *
+ * Los cambios desde la última carga (líneas agregadas o modificadas y líneas
+ * quitadas) se registran para que un almacenamiento externo escriba solo esas
+ * filas y no el carrito completo.
+ */
+public class Carrito implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int MAX_UNIDADES_POR_LINEA = 5;
+
+    private transient List<LineaCarrito> lineas = new ArrayList<>();
+
+    private transient Map<Long, LineaCarrito> porClave = new HashMap<>();
+
+    private transient Map<Long, LineaCarrito> modificadas = new LinkedHashMap<>();
+
+    private transient Map<Long, LineaCarrito> eliminadas = new HashMap<>();
+
+    public LineaCarrito buscar(long productoId, int talla) {
+        return porClave.get(LineaCarrito.clave(productoId, talla));
+    }
+
+    public LineaCarrito linea(int index) {
+        return index >= 0 && index < lineas.size() ? lineas.get(index) : null;
+    }
+
+    public void agregar(LineaCarrito linea) {
+        LineaCarrito anterior = porClave.put(linea.getClave(), linea);
+        if (anterior != null) {
+            lineas.set(lineas.indexOf(anterior), linea);
+        } else {
+            lineas.add(linea);
+        }
+        eliminadas.remove(linea.getClave());
+        modificadas.put(linea.getClave(), linea);
+    }
+
+    public void cambiarCantidad(LineaCarrito linea, int cantidad) {
+        linea.setCantidad(cantidad);
+        modificadas.put(linea.getClave(), linea);
+    }
+
+    public void actualizarPrecioYStock(LineaCarrito linea, double precio, int stock) {
+        linea.setPrecio(precio);
+        linea.setStock(stock);
+        modificadas.put(linea.getClave(), linea);
+    }
+
+    public LineaCarrito eliminar(int index) {
+        LineaCarrito linea = linea(index);
+        if (linea != null) {
+            lineas.remove(index);
+            porClave.remove(linea.getClave());
+            modificadas.remove(linea.getClave());
+            eliminadas.put(linea.getClave(), linea);
+        }
+        return linea;
+    }
+
+    public void quitar(LineaCarrito linea) {
+        int index = lineas.indexOf(linea);
+        if (index >= 0) {
+            eliminar(index);
+        }
+    }
+
+    public void vaciar() {
+        for (LineaCarrito linea : lineas) {
+            eliminadas.put(linea.getClave(), linea);
+        }
+        lineas.clear();
+        porClave.clear();
+        modificadas.clear();
+    }
+
+    // ===================================
+    // CAMBIOS PENDIENTES DE GUARDAR
+    // ===================================
+    public Collection<LineaCarrito> lineasModificadas() {
+        return Collections.unmodifiableCollection(modificadas.values());
+    }
+
+    public Collection<LineaCarrito> lineasEliminadas() {
+        return Collections.unmodifiableCollection(eliminadas.values());
+    }
+
+    public boolean tieneCambios() {
+        return !modificadas.isEmpty() || !eliminadas.isEmpty();
+    }
+
+    /**
+     * Marca el estado actual como guardado.
+     */
+    public void confirmarCambios() {
+        modificadas.clear();
+        eliminadas.clear();
+    }
+
+    public List<LineaCarrito> getLineas() {
+        return Collections.unmodifiableList(lineas);
+    }
+
+    public int getCantidadLineas() {
+        return lineas.size();
+    }
+
+    public int getTotalUnidades() {
+        int total = 0;
+        for (LineaCarrito linea : lineas) {
+            total += linea.getCantidad();
+        }
+        return total;
+    }
+
+    public double getSubtotal() {
+        double subtotal = 0;
+        for (LineaCarrito linea : lineas) {
+            subtotal += linea.getSubtotal();
+        }
+        return subtotal;
+    }
+
+    public boolean isVacio() {
+        return lineas.isEmpty();
+    }
+
+    // ===================================
+    // SERIALIZACIÓN
+    // ===================================
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(lineas.size());
+        for (LineaCarrito linea : lineas) {
+            out.writeLong(linea.getProductoId());
+            out.writeInt(linea.getTalla());
+            out.writeUTF(linea.getNombre() != null ? linea.getNombre() : "");
+            out.writeUTF(linea.getImagen() != null ? linea.getImagen() : "");
+            out.writeDouble(linea.getPrecio());
+            out.writeInt(linea.getStock());
+            out.writeInt(linea.getCantidad());
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int total = in.readInt();
+        lineas = new ArrayList<>(total);
+        porClave = new HashMap<>(Math.max(16, total * 2));
+        modificadas = new LinkedHashMap<>();
+        eliminadas = new HashMap<>();
+        for (int i = 0; i < total; i++) {
+            agregar(new LineaCarrito(in.readLong(), in.readInt(), in.readUTF(), in.readUTF(),
+                    in.readDouble(), in.readInt(), in.readInt()));
+        }
+        confirmarCambios();
+    }
+}
@@ -11,8 +11,12 @@ import lombok.Data;
 @Entity
 @Table(name = "detalles_pedido")
 public class DetallePedido {
+    // Ids tomados de a 50 (optimizador pooled): con IDENTITY Hibernate tendría que
+    // insertar cada detalle por separado para conocer su id y no podría agruparlos en lote.
+    // MySQL no tiene secuencias, así que Hibernate la emula con la tabla detalles_pedido_seq.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detalles_pedido_seq")
+    @SequenceGenerator(name = "detalles_pedido_seq", sequenceName = "detalles_pedido_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,56 @@
+package com.stepup.shoes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Evento pendiente de procesar fuera de la petición (correo de confirmación,
+ * métricas, etc.). Se inserta en la misma transacción que el pedido: si el
+ * pedido se guarda, el evento también, y viceversa.
+ */
+@Data
+@Entity
+@Table(name = "outbox_eventos", indexes = {
+        @Index(name = "idx_outbox_pendientes", columnList = "estado, siguiente_intento")
+})
+public class EventoOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Tipo de evento, p. ej. "PEDIDO_REGISTRADO"; elige qué manejadores lo reciben
+    @Column(nullable = false, length = 50)
+    private String tipo;
+
+    @Column(name = "pedido_id")
+    private Long pedidoId;
+
+    // Datos del evento en JSON
+    @Column(columnDefinition = "TEXT")
+    private String datos;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoEvento estado = EstadoEvento.PENDIENTE;
+
+    @Column(nullable = false)
+    private Integer intentos = 0;
+
+    // Cuándo puede tomarse (de nuevo): reintentos con espera y vencimiento de un lote tomado
+    @Column(name = "siguiente_intento", nullable = false)
+    private LocalDateTime siguienteIntento = LocalDateTime.now();
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion")
+    private LocalDateTime fechaCreacion = LocalDateTime.now();
+
+    @Column(name = "procesado_en")
+    private LocalDateTime procesadoEn;
+
+    public enum EstadoEvento {
+        PENDIENTE, PROCESADO, FALLIDO
+    }
+}
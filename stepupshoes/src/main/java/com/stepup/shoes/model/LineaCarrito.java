@@ -0,0 +1,92 @@
+package com.stepup.shoes.model;
+
+import java.io.Serializable;
+
+/**
+ * Una línea del carrito: un producto en una talla. Los campos numéricos son
+ * primitivos; solo la cantidad (y el precio/stock al revalidar) cambia, y
+ * siempre a través de {@link Carrito} para que quede registrado como cambio.
+ */
+public class LineaCarrito implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long productoId;
+    private final int talla;
+    private final String nombre;
+    private final String imagen;
+    private double precio;
+    private int stock;
+    private int cantidad;
+
+    public LineaCarrito(long productoId, int talla, String nombre, String imagen,
+                        double precio, int stock, int cantidad) {
+        this.productoId = productoId;
+        this.talla = talla;
+        this.nombre = nombre;
+        this.imagen = imagen;
+        this.precio = precio;
+        this.stock = stock;
+        this.cantidad = cantidad;
+    }
+
+    public static LineaCarrito de(Producto producto, int talla, int cantidad) {
+        return new LineaCarrito(producto.getId(), talla, producto.getNombre(), producto.getImagenUrl(),
+                producto.getPrecio(), producto.getStockTalla(talla), cantidad);
+    }
+
+    /**
+     * Clave de la línea dentro del carrito: (productoId, talla) en un solo long.
+     */
+    public static long clave(long productoId, int talla) {
+        return (productoId << 16) | (talla & 0xFFFF);
+    }
+
+    public long getClave() {
+        return clave(productoId, talla);
+    }
+
+    public long getProductoId() {
+        return productoId;
+    }
+
+    public int getTalla() {
+        return talla;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public String getImagen() {
+        return imagen;
+    }
+
+    public double getPrecio() {
+        return precio;
+    }
+
+    void setPrecio(double precio) {
+        this.precio = precio;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    void setStock(int stock) {
+        this.stock = stock;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    void setCantidad(int cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public double getSubtotal() {
+        return precio * cantidad;
+    }
+}
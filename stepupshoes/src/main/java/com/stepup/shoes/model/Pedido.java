@@ -12,7 +12,10 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "pedidos")
+@Table(name = "pedidos", indexes = {
+        // Historial de un usuario, más recientes primero (paginación por keyset)
+        @Index(name = "idx_pedido_usuario_fecha", columnList = "usuario_id, fecha_creacion, id")
+})
 public class Pedido {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,6 +24,10 @@ public class Pedido {
     @Column(unique = true)
     private String numeroPedido;
     
+    // Clave del formulario de checkout que creó el pedido; impide registrarlo dos veces
+    @Column(name = "clave_idempotencia", unique = true, length = 64)
+    private String claveIdempotencia;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id")
     private Usuario usuario;
@@ -38,6 +45,18 @@ public class Pedido {
     private List<DetallePedido> detalles = new ArrayList<>();
     
     public enum EstadoPedido {
-        PENDIENTE, ENVIADO, ENTREGADO, CANCELADO
+        PENDIENTE, ENVIADO, ENTREGADO, CANCELADO;
+
+        /**
+         * Único estado desde el que se puede llegar a este (PENDIENTE -> ENVIADO ->
+         * ENTREGADO, PENDIENTE -> CANCELADO); null si no se llega desde ninguno.
+         */
+        public EstadoPedido anterior() {
+            return switch (this) {
+                case ENVIADO, CANCELADO -> PENDIENTE;
+                case ENTREGADO -> ENVIADO;
+                case PENDIENTE -> null;
+            };
+        }
     }
 }
@@ -2,9 +2,9 @@ package com.stepup.shoes.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -26,6 +26,7 @@ public class Producto {
     
     private Double precioOriginal;
     
+    // Total de todas las tallas; el stock que se reserva y descuenta es el de cada talla
     private Integer stock;
     
     private String imagenUrl;  // Solo nombre de archivo: "nike-air-max-270.jpg"
@@ -38,10 +39,11 @@ public class Producto {
     @JoinColumn(name = "categoria_id")
     private Categoria categoria;
     
-    @ElementCollection
-    @CollectionTable(name = "producto_tallas", joinColumns = @JoinColumn(name = "producto_id"))
-    @Column(name = "talla")
-    private List<Integer> tallasDisponibles;
+    // Si varias filas necesitan sus tallas, se cargan en lotes y no una consulta por producto
+    @BatchSize(size = 50)
+    @OneToMany(mappedBy = "producto", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("talla")
+    private List<ProductoTalla> tallas = new ArrayList<>();
     
     @Column(name = "fecha_creacion")
     private LocalDateTime fechaCreacion = LocalDateTime.now();
@@ -49,51 +51,6 @@ public class Producto {
     @Column(name = "fecha_actualizacion")
     private LocalDateTime fechaActualizacion = LocalDateTime.now();
     
-    // ✅ MÉTODO PRINCIPAL CORREGIDO: Obtener URL completa de Firebase
-    public String getRutaImagenCompleta() {
-        // Si no hay imagen, retornar placeholder
-        if (imagenUrl == null || imagenUrl.trim().isEmpty()) {
-            return "https://via.placeholder.com/300x200?text=Sin+Imagen";
-        }
-        
-        // Si ya es URL completa (de Firebase u otro), retornarla
-        if (imagenUrl.startsWith("http://") || imagenUrl.startsWith("https://")) {
-            return imagenUrl;
-        }
-        
-        // Si es solo nombre de archivo (como en tu BD), construir URL de Firebase
-        return construirUrlFirebase(imagenUrl);
-    }
-    
-    // ✅ Método auxiliar: Construir URL de Firebase
-    private String construirUrlFirebase(String nombreArchivo) {
-        try {
-            // Carpeta donde están las imágenes en Firebase Storage
-            String carpetaFirebase = "productos";
-            
-            // Codificar la ruta para URL: productos/nombreArchivo.jpg
-            String rutaCodificada = URLEncoder.encode(
-                carpetaFirebase + "/" + nombreArchivo, 
-                StandardCharsets.UTF_8.toString()
-            ).replace("+", "%20"); // Reemplazar espacios correctamente
-            
-            // Construir URL pública de Firebase
-            return String.format(
-                "https://firebasestorage.googleapis.com/v0/b/%s/o/%s?alt=media",
-                "stepup-shoes-3fbfb.appspot.com",  // Nombre correcto del bucket
-                rutaCodificada
-            );
-            
-        } catch (Exception e) {
-            // Para debug en consola
-            System.err.println("❌ Error construyendo URL Firebase para: " + nombreArchivo);
-            e.printStackTrace();
-            
-            // Retornar placeholder en caso de error
-            return "https://via.placeholder.com/300x200?text=Error+URL";
-        }
-    }
-    
     // ✅ Método para debug: Ver información completa de la imagen
     public String getInfoRutaImagen() {
         StringBuilder info = new StringBuilder();
@@ -101,11 +58,34 @@ public class Producto {
         info.append("ID Producto: ").append(id).append("\n");
         info.append("Nombre: ").append(nombre).append("\n");
         info.append("imagenUrl (BD): ").append(imagenUrl).append("\n");
-        info.append("Ruta Firebase: ").append(getRutaImagenCompleta()).append("\n");
         info.append("Categoría: ").append(categoria != null ? categoria.getNombre() : "null");
         return info.toString();
     }
     
+    // Tallas con stock, de menor a mayor
+    public List<Integer> getTallasDisponibles() {
+        List<Integer> disponibles = new ArrayList<>();
+        if (tallas != null) {
+            for (ProductoTalla t : tallas) {
+                if (t.getStock() != null && t.getStock() > 0) {
+                    disponibles.add(t.getTalla());
+                }
+            }
+        }
+        return disponibles;
+    }
+    
+    public int getStockTalla(int talla) {
+        if (tallas != null) {
+            for (ProductoTalla t : tallas) {
+                if (t.getTalla() == talla) {
+                    return t.getStock() != null ? t.getStock() : 0;
+                }
+            }
+        }
+        return 0;
+    }
+    
     // ✅ Método estático para validar URLs
     public static boolean esUrlValida(String url) {
         if (url == null || url.trim().isEmpty()) {
@@ -0,0 +1,31 @@
+package com.stepup.shoes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Stock de un producto en una talla (tabla producto_tallas).
+ */
+@Data
+@Entity
+@Table(name = "producto_tallas",
+        uniqueConstraints = @UniqueConstraint(name = "uk_producto_talla", columnNames = {"producto_id", "talla"}))
+public class ProductoTalla {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "producto_id", nullable = false)
+    private Producto producto;
+
+    @Column(nullable = false)
+    private Integer talla;
+
+    @Column(nullable = false)
+    private Integer stock = 0;
+}
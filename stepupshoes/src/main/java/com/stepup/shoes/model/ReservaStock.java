@@ -0,0 +1,53 @@
+package com.stepup.shoes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Unidades de un producto/talla apartadas por un carrito. El stock se descuenta
+ * al reservar; si el carrito se abandona, la reserva vence y las unidades
+ * vuelven al stock.
+ */
+@Data
+@Entity
+@Table(name = "reservas_stock", indexes = {
+        @Index(name = "idx_reserva_propietario", columnList = "propietario, estado"),
+        @Index(name = "idx_reserva_vencimiento", columnList = "estado, expira_en")
+})
+public class ReservaStock {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Dueño del carrito (ver CarritoStore#propietario): "u:<usuarioId>" o "s:<id del carrito de la sesión>"
+    @Column(nullable = false, length = 64)
+    private String propietario;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(nullable = false)
+    private Integer talla;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoReserva estado = EstadoReserva.ACTIVA;
+
+    @Column(name = "fecha_creacion")
+    private LocalDateTime fechaCreacion = LocalDateTime.now();
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    // Producto caliente: el stock se descontó en memoria y aún no en la tabla productos
+    @Column(nullable = false)
+    private Boolean diferida = false;
+
+    public enum EstadoReserva {
+        ACTIVA, CONFIRMADA, LIBERADA
+    }
+}
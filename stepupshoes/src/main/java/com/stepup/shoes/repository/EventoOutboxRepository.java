@@ -0,0 +1,41 @@
+package com.stepup.shoes.repository;
+
+import com.stepup.shoes.model.EventoOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    // Próximo lote listo; SKIP LOCKED deja que varias instancias tomen lotes distintos sin esperarse
+    @Query(value = "SELECT * FROM outbox_eventos WHERE estado = 'PENDIENTE' AND siguiente_intento <= :ahora " +
+                   "ORDER BY id LIMIT :limite FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EventoOutbox> bloquearPendientes(@Param("ahora") LocalDateTime ahora, @Param("limite") int limite);
+
+    // Aparta el lote hasta :hasta; si la instancia cae antes de terminarlo, vuelve a estar disponible
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.intentos = e.intentos + 1, e.siguienteIntento = :hasta WHERE e.id IN :ids")
+    int apartar(@Param("ids") Collection<Long> ids, @Param("hasta") LocalDateTime hasta);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.estado = com.stepup.shoes.model.EventoOutbox.EstadoEvento.PROCESADO, " +
+           "e.procesadoEn = :ahora, e.ultimoError = null WHERE e.id = :id")
+    int marcarProcesado(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.estado = :estado, e.siguienteIntento = :siguiente, " +
+           "e.ultimoError = :error WHERE e.id = :id")
+    int marcarError(@Param("id") Long id, @Param("estado") EventoOutbox.EstadoEvento estado,
+                    @Param("siguiente") LocalDateTime siguiente, @Param("error") String error);
+
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.estado = com.stepup.shoes.model.EventoOutbox.EstadoEvento.PROCESADO " +
+           "AND e.procesadoEn < :antes")
+    int borrarProcesados(@Param("antes") LocalDateTime antes);
+}
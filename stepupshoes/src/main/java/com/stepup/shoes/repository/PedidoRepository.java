@@ -4,10 +4,17 @@
  */
 package com.stepup.shoes.repository;
 
+import com.stepup.shoes.dto.ResumenPedido;
 import com.stepup.shoes.model.Pedido;
 import com.stepup.shoes.model.Usuario;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +27,47 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     // Método para buscar pedidos por usuario ordenados por fecha descendente
     List<Pedido> findByUsuarioOrderByFechaCreacionDesc(Usuario usuario);
     
+    // Historial paginado por keyset sobre idx_pedido_usuario_fecha: primera página...
+    @Query("SELECT new com.stepup.shoes.dto.ResumenPedido(p.id, p.numeroPedido, p.fechaCreacion, p.total, p.estado) " +
+           "FROM Pedido p WHERE p.usuario.id = :usuarioId ORDER BY p.fechaCreacion DESC, p.id DESC")
+    List<ResumenPedido> findResumenes(@Param("usuarioId") Long usuarioId, Limit limite);
+    
+    // ...y las siguientes, a partir del último pedido mostrado
+    @Query("SELECT new com.stepup.shoes.dto.ResumenPedido(p.id, p.numeroPedido, p.fechaCreacion, p.total, p.estado) " +
+           "FROM Pedido p WHERE p.usuario.id = :usuarioId " +
+           "AND (p.fechaCreacion < :fecha OR (p.fechaCreacion = :fecha AND p.id < :id)) " +
+           "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    List<ResumenPedido> findResumenesAntesDe(@Param("usuarioId") Long usuarioId, @Param("fecha") LocalDateTime fecha,
+                                             @Param("id") Long id, Limit limite);
+    
+    // Detalle completo (líneas y productos) en una sola consulta; solo si el pedido es del usuario
+    @Query("SELECT p FROM Pedido p LEFT JOIN FETCH p.detalles d LEFT JOIN FETCH d.producto " +
+           "WHERE p.id = :id AND p.usuario.id = :usuarioId")
+    Optional<Pedido> findDetalleDeUsuario(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+    
+    // Pedidos del lote que están en el estado de origen, bloqueados hasta el fin de la transacción
+    @Query(value = "SELECT id FROM pedidos WHERE id IN (:ids) AND estado = :estado FOR UPDATE", nativeQuery = true)
+    List<Long> bloquearEnEstado(@Param("ids") Collection<Long> ids, @Param("estado") String estado);
+    
+    // Transición en bloque: solo cambian los que siguen en el estado de origen
+    @Modifying
+    @Query("UPDATE Pedido p SET p.estado = :nuevo WHERE p.id IN :ids AND p.estado = :actual")
+    int cambiarEstado(@Param("ids") Collection<Long> ids, @Param("actual") Pedido.EstadoPedido actual,
+                      @Param("nuevo") Pedido.EstadoPedido nuevo);
+    
+    // {producto id, talla, unidades} vendidas en los pedidos, para reponer stock al cancelarlos
+    @Query("SELECT d.producto.id, d.talla, SUM(d.cantidad) FROM DetallePedido d " +
+           "WHERE d.pedido.id IN :ids AND d.producto IS NOT NULL GROUP BY d.producto.id, d.talla")
+    List<Object[]> sumarUnidadesPorTalla(@Param("ids") Collection<Long> ids);
+    
+    // Estado actual de cada pedido del lote (para informar los que no cambiaron)
+    @Query("SELECT p.id, p.estado FROM Pedido p WHERE p.id IN :ids")
+    List<Object[]> findEstados(@Param("ids") Collection<Long> ids);
+    
+    // Cantidad de pedidos y monto total de un usuario (una fila)
+    @Query("SELECT COUNT(p), COALESCE(SUM(p.total), 0) FROM Pedido p WHERE p.usuario.id = :usuarioId")
+    List<Object[]> totalesPorUsuario(@Param("usuarioId") Long usuarioId);
+    
     // Método adicional útil: buscar todos los pedidos ordenados por fecha descendente
     List<Pedido> findAllByOrderByFechaCreacionDesc();
     
@@ -28,4 +76,8 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     
     // Método para buscar pedidos por número de pedido
     Optional<Pedido> findByNumeroPedido(String numeroPedido);
+    
+    // Pedido ya registrado con la clave del formulario (solo si es del mismo usuario)
+    @Query("SELECT p.id FROM Pedido p WHERE p.claveIdempotencia = :clave AND p.usuario.id = :usuarioId")
+    Optional<Long> findIdByClaveIdempotencia(@Param("clave") String clave, @Param("usuarioId") Long usuarioId);
 }
\ No newline at end of file
@@ -4,15 +4,22 @@
  */
 package com.stepup.shoes.repository;
 
+import com.stepup.shoes.dto.FilaCatalogo;
+import com.stepup.shoes.dto.PrecioStock;
 import com.stepup.shoes.model.Producto;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto> {
     
     List<Producto> findByCategoriaNombre(String categoria);
     
@@ -30,4 +37,38 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     
     // Método adicional útil
     List<Producto> findByCategoriaNombreAndActivoTrue(String categoria);
+    
+    // Listado del catálogo: productos de una página con su categoría en una sola consulta
+    @EntityGraph(attributePaths = "categoria")
+    List<Producto> findByIdIn(Collection<Long> ids);
+    
+    // Detalle de producto: categoría y tallas en la misma ida a la base de datos
+    @EntityGraph(attributePaths = {"categoria", "tallas"})
+    Optional<Producto> findDetalleById(Long id);
+    
+    // Conteos agregados para las facetas del catálogo: {nombre categoría, precio, cantidad}
+    @Query("SELECT c.nombre, p.precio, COUNT(p) FROM Producto p JOIN p.categoria c " +
+           "WHERE p.activo = true GROUP BY c.nombre, p.precio")
+    List<Object[]> contarPorCategoriaYPrecio();
+    
+    // Proyección usada para construir el snapshot en memoria del catálogo
+    @Query("SELECT new com.stepup.shoes.dto.FilaCatalogo(p.id, p.nombre, p.precio, p.activo, c.id, c.nombre) " +
+           "FROM Producto p LEFT JOIN p.categoria c")
+    List<FilaCatalogo> findFilasCatalogo();
+    
+    // Revalidación del carrito: precio y stock por talla de todas sus líneas en una sola consulta
+    @Query("SELECT new com.stepup.shoes.dto.PrecioStock(p.id, t.talla, p.precio, t.stock, p.activo) " +
+           "FROM Producto p LEFT JOIN p.tallas t WHERE p.id IN :ids")
+    List<PrecioStock> findPrecioStockByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // El total por producto acompaña a los cambios de stock por talla (misma transacción)
+    @Modifying
+    @Query("UPDATE Producto p SET p.stock = p.stock + :diferencia WHERE p.id = :id")
+    int ajustarStockTotal(@Param("id") Long id, @Param("diferencia") long diferencia);
+    
+    // Conteos para las facetas restringidos a productos con stock en una talla
+    @Query("SELECT c.nombre, p.precio, COUNT(p) FROM Producto p JOIN p.categoria c " +
+           "WHERE p.activo = true AND EXISTS (SELECT t.id FROM ProductoTalla t " +
+           "WHERE t.producto = p AND t.talla = :talla AND t.stock > 0) GROUP BY c.nombre, p.precio")
+    List<Object[]> contarPorCategoriaYPrecioEnTalla(@Param("talla") Integer talla);
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.stepup.shoes.repository;
+
+import com.stepup.shoes.dto.CursorCatalogo;
+import com.stepup.shoes.model.Categoria;
+import com.stepup.shoes.model.Producto;
+import com.stepup.shoes.model.ProductoTalla;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Criterios reutilizables para consultar el catálogo directamente en la base de datos.
+ */
+public final class ProductoSpecifications {
+
+    private ProductoSpecifications() {
+    }
+
+    public static Specification<Producto> activos() {
+        return (root, query, cb) -> cb.isTrue(root.<Boolean>get("activo"));
+    }
+
+    /**
+     * Trae la categoría en la misma consulta (evita un SELECT extra por producto al renderizar).
+     * Es un INNER JOIN: los productos sin categoría no se listan, igual que en el snapshot.
+     */
+    public static Specification<Producto> conCategoria() {
+        return (root, query, cb) -> {
+            categoria(root);
+            return null;
+        };
+    }
+
+    // MySQL compara con collation case-insensitive, igual que el equalsIgnoreCase anterior
+    public static Specification<Producto> deCategoria(String categoria) {
+        return (root, query, cb) -> cb.equal(categoria(root).get("nombre"), categoria);
+    }
+
+    // Reutiliza el fetch de categoría si ya existe para no unir dos veces la misma tabla
+    @SuppressWarnings("unchecked")
+    private static Join<Producto, Categoria> categoria(Root<Producto> root) {
+        return root.getFetches().stream()
+                .filter(f -> "categoria".equals(f.getAttribute().getName()))
+                .map(f -> (Join<Producto, Categoria>) f)
+                .findFirst()
+                .orElseGet(() -> (Join<Producto, Categoria>) root.<Producto, Categoria>fetch("categoria", JoinType.INNER));
+    }
+
+    // EXISTS sobre producto_tallas: no duplica filas ni interfiere con el fetch de categoría
+    public static Specification<Producto> conStockEnTalla(Integer talla) {
+        return (root, query, cb) -> {
+            Subquery<Long> sub = query.subquery(Long.class);
+            Root<ProductoTalla> t = sub.from(ProductoTalla.class);
+            sub.select(t.<Long>get("id")).where(
+                    cb.equal(t.get("producto"), root),
+                    cb.equal(t.<Integer>get("talla"), talla),
+                    cb.greaterThan(t.<Integer>get("stock"), 0));
+            return cb.exists(sub);
+        };
+    }
+
+    public static Specification<Producto> precioDesde(double minimo) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.<Double>get("precio"), minimo);
+    }
+
+    public static Specification<Producto> precioHasta(double maximo) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.<Double>get("precio"), maximo);
+    }
+
+    /**
+     * Orden del catálogo. El id se agrega siempre como desempate para que el
+     * cursor identifique una posición única.
+     */
+    public static Sort ordenamiento(String orden) {
+        return switch (orden == null ? "" : orden) {
+            case "precio-asc" -> Sort.by(Sort.Order.asc("precio"), Sort.Order.asc("id"));
+            case "precio-desc" -> Sort.by(Sort.Order.desc("precio"), Sort.Order.asc("id"));
+            case "nombre-asc" -> Sort.by(Sort.Order.asc("nombre"), Sort.Order.asc("id"));
+            default -> Sort.by(Sort.Order.asc("id"));
+        };
+    }
+
+    /**
+     * Valor que se guarda en el cursor para el último producto de una página.
+     */
+    public static String valorCursor(String orden, Producto producto) {
+        return switch (orden == null ? "" : orden) {
+            case "precio-asc", "precio-desc" -> String.valueOf(producto.getPrecio());
+            case "nombre-asc" -> producto.getNombre();
+            default -> null;
+        };
+    }
+
+    /**
+     * Condición keyset: productos posteriores al cursor según el orden elegido.
+     * Equivale a "WHERE (col > :valor) OR (col = :valor AND id > :id)".
+     */
+    public static Specification<Producto> despuesDe(String orden, CursorCatalogo cursor) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            switch (orden == null ? "" : orden) {
+                case "precio-asc", "precio-desc" -> {
+                    Path<Double> precio = root.get("precio");
+                    Double valor = Double.valueOf(cursor.getValor());
+                    return cb.or(
+                            "precio-asc".equals(orden)
+                                    ? cb.greaterThan(precio, valor)
+                                    : cb.lessThan(precio, valor),
+                            cb.and(cb.equal(precio, valor), cb.greaterThan(id, cursor.getId())));
+                }
+                case "nombre-asc" -> {
+                    Path<String> nombre = root.get("nombre");
+                    return cb.or(
+                            cb.greaterThan(nombre, cursor.getValor()),
+                            cb.and(cb.equal(nombre, cursor.getValor()), cb.greaterThan(id, cursor.getId())));
+                }
+                default -> {
+                    return cb.greaterThan(id, cursor.getId());
+                }
+            }
+        };
+    }
+}
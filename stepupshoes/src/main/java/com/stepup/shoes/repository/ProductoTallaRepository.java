@@ -0,0 +1,46 @@
+package com.stepup.shoes.repository;
+
+import com.stepup.shoes.model.ProductoTalla;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface ProductoTallaRepository extends JpaRepository<ProductoTalla, Long> {
+
+    // Descuento atómico por talla: 0 filas = no hay stock suficiente en esa talla (o no existe).
+    // Una cantidad no positiva nunca aplica: restarla aumentaría el stock.
+    @Modifying
+    @Query("UPDATE ProductoTalla t SET t.stock = t.stock - :cantidad " +
+           "WHERE t.producto.id = :productoId AND t.talla = :talla AND t.stock >= :cantidad AND :cantidad > 0")
+    int descontarStock(@Param("productoId") Long productoId, @Param("talla") Integer talla,
+                       @Param("cantidad") int cantidad);
+
+    @Modifying
+    @Query("UPDATE ProductoTalla t SET t.stock = t.stock + :cantidad " +
+           "WHERE t.producto.id = :productoId AND t.talla = :talla")
+    int devolverStock(@Param("productoId") Long productoId, @Param("talla") Integer talla,
+                      @Param("cantidad") int cantidad);
+
+    // Volcado en lote del stock caliente descontado en memoria
+    @Modifying
+    @Query("UPDATE ProductoTalla t SET t.stock = t.stock - :unidades " +
+           "WHERE t.producto.id = :productoId AND t.talla = :talla")
+    int volcarDescuento(@Param("productoId") Long productoId, @Param("talla") Integer talla,
+                        @Param("unidades") long unidades);
+
+    // {producto_id, talla} de cada talla con stock, para el índice de disponibilidad del catálogo
+    @Query("SELECT t.producto.id, t.talla FROM ProductoTalla t WHERE t.stock > 0")
+    List<Object[]> findTallasConStock();
+
+    // {talla, stock} de un producto, para mostrar el stock actual fuera del HTML cacheado
+    @Query("SELECT t.talla, t.stock FROM ProductoTalla t WHERE t.producto.id = :productoId")
+    List<Object[]> findStockPorTalla(@Param("productoId") Long productoId);
+
+    @Query("SELECT DISTINCT t.talla FROM ProductoTalla t WHERE t.stock > 0 AND t.producto.activo = true " +
+           "ORDER BY t.talla")
+    List<Integer> findTallasDisponibles();
+}
@@ -0,0 +1,97 @@
+package com.stepup.shoes.repository;
+
+import com.stepup.shoes.model.ReservaStock;
+import com.stepup.shoes.model.ReservaStock.EstadoReserva;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    List<ReservaStock> findByPropietarioAndEstado(String propietario, EstadoReserva estado);
+
+    List<ReservaStock> findByPropietarioAndProductoIdAndTallaAndEstado(
+            String propietario, Long productoId, Integer talla, EstadoReserva estado);
+
+    // Reservas vencidas, de a lotes para la limpieza periódica
+    List<ReservaStock> findTop500ByEstadoAndExpiraEnBeforeOrderByExpiraEn(EstadoReserva estado, LocalDateTime fecha);
+
+    // Suma unidades a la reserva activa existente; 0 filas = no había reserva
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.cantidad = r.cantidad + :cantidad, r.expiraEn = :expiraEn " +
+           "WHERE r.propietario = :propietario AND r.productoId = :productoId AND r.talla = :talla " +
+           "AND r.diferida = :diferida AND r.estado = com.stepup.shoes.model.ReservaStock.EstadoReserva.ACTIVA")
+    int sumarCantidad(@Param("propietario") String propietario, @Param("productoId") Long productoId,
+                      @Param("talla") Integer talla, @Param("cantidad") int cantidad,
+                      @Param("diferida") boolean diferida, @Param("expiraEn") LocalDateTime expiraEn);
+
+    // Las actualizaciones siguientes llevan la condición "diferida": si el volcado de
+    // stock caliente cambió la reserva mientras tanto, no aplican y se reintentan.
+
+    // Devuelve parte de una reserva activa (siempre queda al menos una unidad)
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.cantidad = r.cantidad - :cantidad " +
+           "WHERE r.id = :id AND r.cantidad > :cantidad AND r.diferida = :diferida " +
+           "AND r.estado = com.stepup.shoes.model.ReservaStock.EstadoReserva.ACTIVA")
+    int restarCantidad(@Param("id") Long id, @Param("cantidad") int cantidad, @Param("diferida") boolean diferida);
+
+    // Transición condicional de estado: solo una de dos operaciones concurrentes la gana
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.estado = :nuevo " +
+           "WHERE r.id = :id AND r.estado = :actual AND r.diferida = :diferida")
+    int cambiarEstado(@Param("id") Long id, @Param("actual") EstadoReserva actual,
+                      @Param("nuevo") EstadoReserva nuevo, @Param("diferida") boolean diferida);
+
+    // Libera una reserva solo si sigue activa y vencida (no compite con una renovación)
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.estado = com.stepup.shoes.model.ReservaStock.EstadoReserva.LIBERADA " +
+           "WHERE r.id = :id AND r.expiraEn < :ahora AND r.diferida = :diferida " +
+           "AND r.estado = com.stepup.shoes.model.ReservaStock.EstadoReserva.ACTIVA")
+    int liberarSiVencida(@Param("id") Long id, @Param("ahora") LocalDateTime ahora,
+                         @Param("diferida") boolean diferida);
+
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.expiraEn = :expiraEn WHERE r.propietario = :propietario " +
+           "AND r.estado = com.stepup.shoes.model.ReservaStock.EstadoReserva.ACTIVA")
+    int renovar(@Param("propietario") String propietario, @Param("expiraEn") LocalDateTime expiraEn);
+
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.propietario = :a, r.expiraEn = :expiraEn WHERE r.propietario = :de " +
+           "AND r.estado = com.stepup.shoes.model.ReservaStock.EstadoReserva.ACTIVA")
+    int transferir(@Param("de") String de, @Param("a") String a, @Param("expiraEn") LocalDateTime expiraEn);
+
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.estado = com.stepup.shoes.model.ReservaStock.EstadoReserva.CONFIRMADA " +
+           "WHERE r.propietario = :propietario " +
+           "AND r.estado = com.stepup.shoes.model.ReservaStock.EstadoReserva.ACTIVA")
+    int confirmarActivas(@Param("propietario") String propietario);
+
+    // ===================================
+    // VOLCADO DE STOCK CALIENTE
+    // ===================================
+    @Query("SELECT DISTINCT r.productoId FROM ReservaStock r WHERE r.diferida = true")
+    List<Long> findProductosConDiferidas();
+
+    // Bloquea las reservas diferidas del producto mientras se vuelcan a la tabla productos
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ReservaStock r WHERE r.productoId = :productoId AND r.diferida = true")
+    List<ReservaStock> bloquearDiferidas(@Param("productoId") Long productoId);
+
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.diferida = false WHERE r.id IN :ids")
+    int marcarVolcadas(@Param("ids") Collection<Long> ids);
+
+    // Unidades descontadas en memoria que la tabla productos todavía no refleja
+    @Query("SELECT COALESCE(SUM(r.cantidad), 0) FROM ReservaStock r WHERE r.productoId = :productoId " +
+           "AND r.talla = :talla AND r.diferida = true " +
+           "AND r.estado <> com.stepup.shoes.model.ReservaStock.EstadoReserva.LIBERADA")
+    long sumarDiferidas(@Param("productoId") Long productoId, @Param("talla") Integer talla);
+}
@@ -0,0 +1,153 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.Producto;
+import com.stepup.shoes.repository.ProductoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Productos destacados de la página de inicio, servidos desde memoria.
+ *
+ * - Refresco anticipado: pasada una fracción del TTL se recarga en segundo
+ *   plano mientras se sigue sirviendo la lista actual.
+ * - Una sola carga a la vez: las peticiones concurrentes que necesitan datos
+ *   esperan la misma consulta en lugar de lanzar una cada una.
+ * - Si la lista expiró y la base de datos tarda más de lo permitido, se
+ *   sirve la lista anterior.
+ */
+@Component
+public class CacheDestacados {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheDestacados.class);
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    @Value("${destacados.ttl-segundos:300}")
+    private long ttlSegundos;
+
+    // Fracción del TTL a partir de la cual se refresca en segundo plano
+    @Value("${destacados.refresco-anticipado:0.8}")
+    private double fraccionRefresco;
+
+    // Tiempo máximo que una petición espera una recarga antes de servir datos viejos
+    @Value("${destacados.espera-maxima-ms:500}")
+    private long esperaMaximaMs;
+
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicReference<CompletableFuture<Entrada>> enCurso = new AtomicReference<>();
+
+    private volatile Entrada actual;
+
+    public List<Producto> obtener() {
+        Entrada entrada = actual;
+        if (entrada == null) {
+            // Primera carga: todas las peticiones esperan la misma consulta
+            return cargar().join().productos;
+        }
+
+        long edad = System.currentTimeMillis() - entrada.cargadaEn;
+        long ttl = TimeUnit.SECONDS.toMillis(ttlSegundos);
+        if (edad <= ttl) {
+            if (edad > ttl * fraccionRefresco) {
+                cargar();
+            }
+            return entrada.productos;
+        }
+
+        try {
+            return cargar().get(esperaMaximaMs, TimeUnit.MILLISECONDS).productos;
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("Destacados expirados; se sirve la lista anterior ({})", e.getClass().getSimpleName());
+            return entrada.productos;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return entrada.productos;
+        }
+    }
+
+    public boolean contiene(Long productoId) {
+        Entrada entrada = actual;
+        return entrada != null && entrada.productos.stream().anyMatch(p -> p.getId().equals(productoId));
+    }
+
+    /**
+     * Fuerza una recarga (p. ej. tras cambiar el flag destacado). Si ya hay una
+     * carga en curso, puede haber leído datos anteriores al cambio, así que se
+     * encadena otra al terminar.
+     *
+     * La recarga es asíncrona: una página de inicio renderizada mientras tanto
+     * usa la lista anterior y queda en caché con la versión actual del catálogo.
+     * Por eso, al terminar, se incrementa la versión otra vez.
+     */
+    public void refrescar() {
+        CompletableFuture<Entrada> pendiente = enCurso.get();
+        CompletableFuture<Entrada> recarga = pendiente != null
+                ? pendiente.handle((entrada, error) -> null).thenCompose(ignorado -> cargar())
+                : cargar();
+        recarga.thenRun(versionCatalogo::incrementar);
+    }
+
+    private CompletableFuture<Entrada> cargar() {
+        while (true) {
+            CompletableFuture<Entrada> existente = enCurso.get();
+            if (existente != null) {
+                return existente;
+            }
+            CompletableFuture<Entrada> nueva = new CompletableFuture<>();
+            if (enCurso.compareAndSet(null, nueva)) {
+                ejecutor.execute(() -> {
+                    Entrada entrada;
+                    try {
+                        entrada = new Entrada(List.copyOf(productoRepository.findByDestacadoTrue()),
+                                System.currentTimeMillis());
+                        actual = entrada;
+                    } catch (RuntimeException e) {
+                        log.error("Error al cargar productos destacados", e);
+                        enCurso.compareAndSet(nueva, null);
+                        nueva.completeExceptionally(e);
+                        return;
+                    }
+                    // Se libera antes de completar: las recargas encadenadas por refrescar()
+                    // corren dentro de complete() y deben iniciar una carga nueva, no recibir esta
+                    enCurso.compareAndSet(nueva, null);
+                    nueva.complete(entrada);
+                });
+                return nueva;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        ejecutor.shutdown();
+    }
+
+    private static final class Entrada {
+
+        final List<Producto> productos;
+        final long cargadaEn;
+
+        Entrada(List<Producto> productos, long cargadaEn) {
+            this.productos = productos;
+            this.cargadaEn = cargadaEn;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.Carrito;
+import jakarta.servlet.http.HttpSession;
+import java.util.Map;
+
+public interface CarritoService {
+    String propietario(HttpSession session);
+    Carrito obtener(HttpSession session);
+    void guardar(HttpSession session, Carrito carrito);
+    void vaciar(HttpSession session);
+    Map<Long, String> revalidar(HttpSession session, Carrito carrito);
+}
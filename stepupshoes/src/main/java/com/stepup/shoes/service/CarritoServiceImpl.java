@@ -0,0 +1,153 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.dto.PrecioStock;
+import com.stepup.shoes.model.Carrito;
+import com.stepup.shoes.model.LineaCarrito;
+import com.stepup.shoes.repository.ProductoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class CarritoServiceImpl implements CarritoService {
+
+    @Autowired
+    private CarritoStore carritoStore;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // Costo de lectura y escritura por operación del carrito, según el almacenamiento usado
+    private Timer tiempoCarga;
+    private Timer tiempoGuardado;
+    private Timer tiempoVaciado;
+
+    @PostConstruct
+    public void init() {
+        String store = carritoStore.getClass().getSimpleName();
+        tiempoCarga = registry.timer("stepup.carrito.store", "operacion", "cargar", "store", store);
+        tiempoGuardado = registry.timer("stepup.carrito.store", "operacion", "guardar", "store", store);
+        tiempoVaciado = registry.timer("stepup.carrito.store", "operacion", "vaciar", "store", store);
+    }
+
+    /**
+     * Dueño del carrito y de sus reservas. Si cambió desde que la sesión usó el
+     * carrito como invitado (inició sesión y el carrito es por usuario), las
+     * líneas y las reservas del invitado pasan al usuario.
+     */
+    @Override
+    public String propietario(HttpSession session) {
+        String propietario = carritoStore.propietario(session);
+        Object invitado = session.getAttribute(CarritoStore.ATRIBUTO_PROPIETARIO);
+        if (invitado instanceof String de && !de.equals(propietario)) {
+            carritoStore.transferir(de, propietario);
+            inventarioService.transferir(de, propietario);
+            session.removeAttribute(CarritoStore.ATRIBUTO_PROPIETARIO);
+        }
+        return propietario;
+    }
+
+    @Override
+    public Carrito obtener(HttpSession session) {
+        // Primero el dueño: si hay que pasar un carrito de invitado, se pasa antes de cargar
+        propietario(session);
+        return tiempoCarga.record(() -> carritoStore.cargar(session));
+    }
+
+    @Override
+    public void guardar(HttpSession session, Carrito carrito) {
+        tiempoGuardado.record(() -> carritoStore.guardar(session, carrito));
+    }
+
+    @Override
+    public void vaciar(HttpSession session) {
+        tiempoVaciado.record(() -> carritoStore.eliminar(session));
+    }
+
+    /**
+     * Compara cada línea con el precio y el stock de su talla (una sola consulta para
+     * todo el carrito) y la corrige: actualiza el precio, ajusta la cantidad al
+     * stock disponible o quita la línea si el producto ya no se vende.
+     * Lo disponible para una línea es el stock libre más lo que este mismo
+     * carrito ya tiene reservado. Devuelve un mensaje por cada línea que
+     * cambió, con su clave.
+     */
+    @Override
+    public Map<Long, String> revalidar(HttpSession session, Carrito carrito) {
+        Map<Long, String> cambios = new LinkedHashMap<>();
+        if (carrito.isVacio()) {
+            return cambios;
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (LineaCarrito linea : carrito.getLineas()) {
+            ids.add(linea.getProductoId());
+        }
+        // Una fila por (producto, talla); el precio y el estado son los del producto
+        Map<Long, PrecioStock> productos = new HashMap<>();
+        Map<Long, Integer> stockPorTalla = new HashMap<>();
+        for (PrecioStock fila : productoRepository.findPrecioStockByIdIn(ids)) {
+            productos.putIfAbsent(fila.getId(), fila);
+            if (fila.getTalla() != null && fila.getStock() != null) {
+                stockPorTalla.put(LineaCarrito.clave(fila.getId(), fila.getTalla()), fila.getStock());
+            }
+        }
+        String propietario = propietario(session);
+        inventarioService.renovar(propietario);
+        Map<Long, Integer> reservadas = inventarioService.reservadas(propietario);
+
+        for (LineaCarrito linea : new ArrayList<>(carrito.getLineas())) {
+            PrecioStock actual = productos.get(linea.getProductoId());
+            int reservado = reservadas.getOrDefault(linea.getClave(), 0);
+            Integer stockTalla = stockPorTalla.get(linea.getClave());
+            int libre = stockTalla != null
+                    ? inventarioService.stockLibre(linea.getProductoId(), linea.getTalla(), stockTalla) : 0;
+            int stock = libre + reservado;
+
+            if (actual == null || Boolean.FALSE.equals(actual.getActivo()) || stock <= 0) {
+                if (reservado > 0) {
+                    inventarioService.liberar(propietario, linea.getProductoId(), linea.getTalla(), reservado);
+                }
+                carrito.quitar(linea);
+                cambios.put(linea.getClave(), linea.getNombre() + " talla " + linea.getTalla()
+                        + " ya no está disponible y se quitó del carrito");
+                continue;
+            }
+
+            double precio = actual.getPrecio();
+            if (Double.compare(precio, linea.getPrecio()) != 0) {
+                cambios.put(linea.getClave(), String.format("El precio de %s cambió de $%.2f a $%.2f",
+                        linea.getNombre(), linea.getPrecio(), precio));
+            }
+            if (stock < linea.getCantidad()) {
+                cambios.merge(linea.getClave(), String.format("Solo quedan %d unidades de %s en talla %d",
+                        stock, linea.getNombre(), linea.getTalla()), (a, b) -> a + ". " + b);
+                carrito.cambiarCantidad(linea, stock);
+            }
+            if (Double.compare(precio, linea.getPrecio()) != 0 || stock != linea.getStock()) {
+                carrito.actualizarPrecioYStock(linea, precio, stock);
+            }
+        }
+
+        if (carrito.tieneCambios()) {
+            guardar(session, carrito);
+        }
+        return cambios;
+    }
+}
@@ -0,0 +1,47 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.Carrito;
+import jakarta.servlet.http.HttpSession;
+
+import java.util.UUID;
+
+/**
+ * Dónde vive el carrito. Se elige con la propiedad carrito.store
+ * (sesion | jdbc).
+ */
+public interface CarritoStore {
+
+    String ATRIBUTO_PROPIETARIO = "carritoPropietario";
+
+    /**
+     * Identificador del carrito de esta sesión. Se guarda como atributo y no se
+     * usa el id de la sesión, que cambia al iniciar sesión (los atributos se conservan).
+     */
+    static String propietarioSesion(HttpSession session) {
+        Object propietario = session.getAttribute(ATRIBUTO_PROPIETARIO);
+        if (propietario instanceof String p) {
+            return p;
+        }
+        String nuevo = "s:" + UUID.randomUUID();
+        session.setAttribute(ATRIBUTO_PROPIETARIO, nuevo);
+        return nuevo;
+    }
+
+    /**
+     * Dueño del carrito y de sus reservas de stock. Es la misma clave con la que
+     * se guarda el carrito, así liberar o confirmar las reservas de un carrito
+     * nunca toca las de otro.
+     */
+    String propietario(HttpSession session);
+
+    /**
+     * Pasa las líneas de un carrito de invitado al del usuario al iniciar sesión.
+     * No hace nada si el carrito ya pertenece a la sesión en ambos casos.
+     */
+    default void transferir(String de, String a) {
+    }
+
+    Carrito cargar(HttpSession session);
+    void guardar(HttpSession session, Carrito carrito);
+    void eliminar(HttpSession session);
+}
@@ -0,0 +1,502 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.config.CatalogoProperties.RangoPrecio;
+import com.stepup.shoes.dto.CursorCatalogo;
+import com.stepup.shoes.dto.FacetasCatalogo;
+import com.stepup.shoes.dto.FilaCatalogo;
+import com.stepup.shoes.model.Producto;
+import com.stepup.shoes.repository.ProductoRepository;
+import com.stepup.shoes.repository.ProductoTallaRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Copia de solo lectura del catálogo organizada por columnas primitivas.
+ *
+ * Las consultas del catálogo (categoría, rango de precio, orden y cursor) se
+ * resuelven recorriendo arreglos sin hidratar entidades ni tocar la base de
+ * datos; solo los ids de la página resultante se cargan después con JPA.
+ * Cada cambio construye una copia nueva y la publica con una sola escritura
+ * volátil (copy-on-write), así los lectores nunca ven un estado intermedio.
+ *
+ * La disponibilidad por talla es un bitmap por talla sobre las mismas filas
+ * (bit encendido = el producto tiene stock en esa talla), así el filtro
+ * "con stock en talla X" no necesita unir producto_tallas en cada petición.
+ * Como el stock cambia con cada reserva, los bitmaps se recargan
+ * periódicamente con una consulta de proyección.
+ */
+@Component
+public class CatalogoSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoSnapshot.class);
+
+    static final int ORDEN_ID = 0;
+    static final int ORDEN_PRECIO_ASC = 1;
+    static final int ORDEN_PRECIO_DESC = 2;
+    static final int ORDEN_NOMBRE_ASC = 3;
+
+    private static final BitSet VACIO = new BitSet();
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoTallaRepository productoTallaRepository;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    @Value("${catalogo.snapshot.habilitado:true}")
+    private boolean habilitado;
+
+    private volatile Datos datos;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (habilitado) {
+            recargar();
+        }
+    }
+
+    public boolean disponible() {
+        return habilitado && datos != null;
+    }
+
+    /**
+     * Reconstruye el snapshot completo desde la base de datos (una consulta de proyección).
+     */
+    public synchronized void recargar() {
+        List<FilaCatalogo> filas = productoRepository.findFilasCatalogo();
+        datos = Datos.construir(filas, cargarTallas());
+        log.info("Snapshot del catálogo cargado: {} productos", filas.size());
+    }
+
+    /**
+     * Recarga solo la disponibilidad por talla. Si cambió, se publica una copia
+     * con los bitmaps nuevos (las demás columnas se comparten) y se invalida la
+     * versión del catálogo para que las páginas en caché no queden viejas.
+     */
+    @Scheduled(fixedDelayString = "${catalogo.tallas.refresco-ms:30000}")
+    public void refrescarTallas() {
+        if (!disponible()) {
+            return;
+        }
+        Map<Long, int[]> nuevas = cargarTallas();
+        synchronized (this) {
+            Datos actual = datos;
+            if (!mismasTallas(actual.tallasPorId, nuevas)) {
+                datos = new Datos(actual, nuevas);
+                versionCatalogo.incrementar();
+            }
+        }
+    }
+
+    // id producto -> tallas con stock, ordenadas
+    private Map<Long, int[]> cargarTallas() {
+        Map<Long, List<Integer>> porProducto = new HashMap<>();
+        for (Object[] fila : productoTallaRepository.findTallasConStock()) {
+            porProducto.computeIfAbsent((Long) fila[0], id -> new ArrayList<>()).add((Integer) fila[1]);
+        }
+        Map<Long, int[]> tallas = new HashMap<>();
+        porProducto.forEach((id, lista) -> tallas.put(id, lista.stream().mapToInt(Integer::intValue).sorted().toArray()));
+        return tallas;
+    }
+
+    private static boolean mismasTallas(Map<Long, int[]> a, Map<Long, int[]> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (Map.Entry<Long, int[]> entrada : a.entrySet()) {
+            if (!Arrays.equals(entrada.getValue(), b.get(entrada.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Inserta o reemplaza un producto sin volver a consultar la base de datos.
+     */
+    public synchronized void actualizar(Producto producto) {
+        Datos actual = datos;
+        if (actual == null || producto.getId() == null) {
+            return;
+        }
+        Long categoriaId = null;
+        String categoriaNombre = null;
+        if (producto.getCategoria() != null) {
+            categoriaId = producto.getCategoria().getId();
+            categoriaNombre = actual.nombreCategoria(categoriaId);
+            if (categoriaNombre == null) {
+                categoriaNombre = producto.getCategoria().getNombre();
+            }
+        }
+        FilaCatalogo nueva = new FilaCatalogo(producto.getId(), producto.getNombre(), producto.getPrecio(),
+                producto.getActivo(), categoriaId, categoriaNombre);
+
+        List<FilaCatalogo> filas = actual.filas();
+        int fila = Arrays.binarySearch(actual.ids, producto.getId());
+        if (fila >= 0) {
+            filas.set(fila, nueva);
+        } else {
+            filas.add(-fila - 1, nueva);
+        }
+
+        // Si las tallas no vienen cargadas, se conservan las del snapshot hasta el próximo refresco
+        Map<Long, int[]> tallas = new HashMap<>(actual.tallasPorId);
+        if (producto.getTallas() != null && Hibernate.isInitialized(producto.getTallas())) {
+            tallas.put(producto.getId(), producto.getTallasDisponibles().stream().mapToInt(Integer::intValue).toArray());
+        }
+        datos = Datos.construir(filas, tallas);
+    }
+
+    public synchronized void eliminar(Long id) {
+        Datos actual = datos;
+        if (actual == null || id == null) {
+            return;
+        }
+        int fila = Arrays.binarySearch(actual.ids, id);
+        if (fila >= 0) {
+            List<FilaCatalogo> filas = actual.filas();
+            filas.remove(fila);
+            Map<Long, int[]> tallas = new HashMap<>(actual.tallasPorId);
+            tallas.remove(id);
+            datos = Datos.construir(filas, tallas);
+        }
+    }
+
+    /**
+     * Escribe en {@code destino} los ids de los productos activos que cumplen el
+     * filtro (talla null = cualquiera), en el orden pedido y a partir del cursor.
+     * Devuelve cuántos escribió.
+     */
+    public int buscar(String categoria, double precioMin, double precioMax, Integer talla,
+                      String orden, CursorCatalogo cursor, long[] destino) {
+        Datos d = datos;
+        if (d == null) {
+            return 0;
+        }
+
+        int categoriaOrdinal = -1;
+        if (categoria != null && !categoria.isBlank()) {
+            Integer ordinal = d.ordinalPorNombre.get(categoria.toLowerCase(Locale.ROOT));
+            if (ordinal == null) {
+                return 0;
+            }
+            categoriaOrdinal = ordinal;
+        }
+
+        BitSet enTalla = talla != null ? d.disponiblesPorTalla.getOrDefault(talla, VACIO) : null;
+
+        int tipoOrden = tipoOrden(orden);
+        int[] permutacion = d.permutaciones[tipoOrden];
+        int n = 0;
+        for (int i = d.inicio(tipoOrden, cursor); i < permutacion.length && n < destino.length; i++) {
+            int fila = permutacion[i];
+            // Mismos filtros que la consulta de respaldo: activos() y conCategoria()
+            if (!d.activos.get(fila) || d.categorias[fila] < 0) {
+                continue;
+            }
+            if (enTalla != null && !enTalla.get(fila)) {
+                continue;
+            }
+            if (categoriaOrdinal >= 0 && d.categorias[fila] != categoriaOrdinal) {
+                continue;
+            }
+            double precio = d.precios[fila];
+            if (precio < precioMin || precio > precioMax) {
+                continue;
+            }
+            destino[n++] = d.ids[fila];
+        }
+        return n;
+    }
+
+    /**
+     * Conteos por categoría y por rango de precio en una sola pasada sobre las columnas.
+     */
+    public FacetasCatalogo facetas(String categoria, double precioMin, double precioMax, Integer talla,
+                                   List<RangoPrecio> rangos) {
+        Datos d = datos;
+        Map<String, Long> porCategoria = new LinkedHashMap<>();
+        Map<String, Long> porRango = new LinkedHashMap<>();
+        if (d == null) {
+            return new FacetasCatalogo(porCategoria, porRango);
+        }
+
+        int categoriaOrdinal = -1;
+        if (categoria != null && !categoria.isBlank()) {
+            Integer ordinal = d.ordinalPorNombre.get(categoria.toLowerCase(Locale.ROOT));
+            categoriaOrdinal = ordinal != null ? ordinal : Integer.MAX_VALUE;
+        }
+
+        // Filas candidatas: activas y, si se filtra por talla, con stock en ella
+        BitSet candidatas = d.activos;
+        if (talla != null) {
+            candidatas = (BitSet) d.activos.clone();
+            candidatas.and(d.disponiblesPorTalla.getOrDefault(talla, VACIO));
+        }
+
+        long[] conteoCategorias = new long[d.nombresCategoria.length];
+        long[] conteoRangos = new long[rangos.size()];
+        for (int fila = candidatas.nextSetBit(0); fila >= 0; fila = candidatas.nextSetBit(fila + 1)) {
+            int c = d.categorias[fila];
+            double precio = d.precios[fila];
+            if (c >= 0 && precio >= precioMin && precio <= precioMax) {
+                conteoCategorias[c]++;
+            }
+            if (c >= 0 && (categoriaOrdinal < 0 || c == categoriaOrdinal)) {
+                for (int r = 0; r < conteoRangos.length; r++) {
+                    if (rangos.get(r).contiene(precio)) {
+                        conteoRangos[r]++;
+                    }
+                }
+            }
+        }
+
+        for (int c = 0; c < conteoCategorias.length; c++) {
+            porCategoria.put(d.nombresCategoria[c], conteoCategorias[c]);
+        }
+        for (int r = 0; r < conteoRangos.length; r++) {
+            porRango.put(rangos.get(r).getClave(), conteoRangos[r]);
+        }
+        return new FacetasCatalogo(porCategoria, porRango);
+    }
+
+    /**
+     * Tallas en las que hay al menos un producto activo con stock, de menor a mayor.
+     */
+    public List<Integer> tallas() {
+        Datos d = datos;
+        List<Integer> tallas = new ArrayList<>();
+        if (d == null) {
+            return tallas;
+        }
+        d.disponiblesPorTalla.forEach((talla, filas) -> {
+            if (filas.intersects(d.activos)) {
+                tallas.add(talla);
+            }
+        });
+        return tallas;
+    }
+
+    static int tipoOrden(String orden) {
+        return switch (orden == null ? "" : orden) {
+            case "precio-asc" -> ORDEN_PRECIO_ASC;
+            case "precio-desc" -> ORDEN_PRECIO_DESC;
+            case "nombre-asc" -> ORDEN_NOMBRE_ASC;
+            default -> ORDEN_ID;
+        };
+    }
+
+    /**
+     * Estado inmutable del snapshot. Cada fila es un índice común a todas las columnas;
+     * las filas están ordenadas por id para poder buscarlas con búsqueda binaria.
+     */
+    private static final class Datos {
+
+        private static final Collator COLLATOR = Collator.getInstance(Locale.forLanguageTag("es"));
+
+        final long[] ids;
+        final double[] precios;
+        final int[] categorias;
+        final String[] nombres;
+        final BitSet activos;
+
+        // ordinal -> categoría
+        final long[] idsCategoria;
+        final String[] nombresCategoria;
+        final Map<String, Integer> ordinalPorNombre;
+
+        // Para cada tipo de orden: filas ordenadas y su posición inversa
+        final int[][] permutaciones;
+        final int[][] posiciones;
+
+        // id producto -> tallas con stock, y talla -> filas con stock en ella (ordenado por talla)
+        final Map<Long, int[]> tallasPorId;
+        final Map<Integer, BitSet> disponiblesPorTalla;
+
+        private Datos(int n, int totalCategorias, Map<Long, int[]> tallasPorId) {
+            ids = new long[n];
+            precios = new double[n];
+            categorias = new int[n];
+            nombres = new String[n];
+            activos = new BitSet(n);
+            idsCategoria = new long[totalCategorias];
+            nombresCategoria = new String[totalCategorias];
+            ordinalPorNombre = new HashMap<>();
+            permutaciones = new int[4][];
+            posiciones = new int[4][];
+            this.tallasPorId = tallasPorId;
+            disponiblesPorTalla = new TreeMap<>();
+        }
+
+        // Misma información de productos con otra disponibilidad por talla (las columnas se comparten)
+        private Datos(Datos base, Map<Long, int[]> tallasPorId) {
+            ids = base.ids;
+            precios = base.precios;
+            categorias = base.categorias;
+            nombres = base.nombres;
+            activos = base.activos;
+            idsCategoria = base.idsCategoria;
+            nombresCategoria = base.nombresCategoria;
+            ordinalPorNombre = base.ordinalPorNombre;
+            permutaciones = base.permutaciones;
+            posiciones = base.posiciones;
+            this.tallasPorId = tallasPorId;
+            disponiblesPorTalla = new TreeMap<>();
+            indexarTallas();
+        }
+
+        static Datos construir(List<FilaCatalogo> filas, Map<Long, int[]> tallasPorId) {
+            List<FilaCatalogo> ordenadas = new ArrayList<>(filas);
+            ordenadas.sort(Comparator.comparing(FilaCatalogo::getId));
+
+            Map<Long, Integer> ordinalPorId = new HashMap<>();
+            List<FilaCatalogo> categoriasVistas = new ArrayList<>();
+            for (FilaCatalogo f : ordenadas) {
+                if (f.getCategoriaId() != null && !ordinalPorId.containsKey(f.getCategoriaId())) {
+                    ordinalPorId.put(f.getCategoriaId(), categoriasVistas.size());
+                    categoriasVistas.add(f);
+                }
+            }
+
+            Datos d = new Datos(ordenadas.size(), categoriasVistas.size(), tallasPorId);
+            for (int c = 0; c < categoriasVistas.size(); c++) {
+                FilaCatalogo f = categoriasVistas.get(c);
+                d.idsCategoria[c] = f.getCategoriaId();
+                d.nombresCategoria[c] = f.getCategoriaNombre();
+                if (f.getCategoriaNombre() != null) {
+                    d.ordinalPorNombre.put(f.getCategoriaNombre().toLowerCase(Locale.ROOT), c);
+                }
+            }
+
+            for (int i = 0; i < ordenadas.size(); i++) {
+                FilaCatalogo f = ordenadas.get(i);
+                d.ids[i] = f.getId();
+                d.precios[i] = f.getPrecio() != null ? f.getPrecio() : 0.0;
+                d.nombres[i] = f.getNombre() != null ? f.getNombre() : "";
+                d.categorias[i] = f.getCategoriaId() != null ? ordinalPorId.get(f.getCategoriaId()) : -1;
+                // activo null no se lista, igual que cb.isTrue(activo) en la consulta de respaldo
+                d.activos.set(i, Boolean.TRUE.equals(f.getActivo()));
+            }
+
+            d.indexar(ORDEN_ID, (a, b) -> Long.compare(d.ids[a], d.ids[b]));
+            d.indexar(ORDEN_PRECIO_ASC, (a, b) -> {
+                int c = Double.compare(d.precios[a], d.precios[b]);
+                return c != 0 ? c : Long.compare(d.ids[a], d.ids[b]);
+            });
+            d.indexar(ORDEN_PRECIO_DESC, (a, b) -> {
+                int c = Double.compare(d.precios[b], d.precios[a]);
+                return c != 0 ? c : Long.compare(d.ids[a], d.ids[b]);
+            });
+            d.indexar(ORDEN_NOMBRE_ASC, (a, b) -> {
+                int c = COLLATOR.compare(d.nombres[a], d.nombres[b]);
+                return c != 0 ? c : Long.compare(d.ids[a], d.ids[b]);
+            });
+            d.indexarTallas();
+            return d;
+        }
+
+        private void indexarTallas() {
+            for (int fila = 0; fila < ids.length; fila++) {
+                int[] tallas = tallasPorId.get(ids[fila]);
+                if (tallas != null) {
+                    for (int talla : tallas) {
+                        disponiblesPorTalla.computeIfAbsent(talla, t -> new BitSet(ids.length)).set(fila);
+                    }
+                }
+            }
+        }
+
+        private void indexar(int tipoOrden, Comparator<Integer> comparador) {
+            Integer[] filas = new Integer[ids.length];
+            for (int i = 0; i < filas.length; i++) {
+                filas[i] = i;
+            }
+            Arrays.sort(filas, comparador);
+
+            int[] permutacion = new int[filas.length];
+            int[] posicion = new int[filas.length];
+            for (int i = 0; i < filas.length; i++) {
+                permutacion[i] = filas[i];
+                posicion[filas[i]] = i;
+            }
+            permutaciones[tipoOrden] = permutacion;
+            posiciones[tipoOrden] = posicion;
+        }
+
+        /**
+         * Primera posición de la permutación posterior al cursor.
+         */
+        int inicio(int tipoOrden, CursorCatalogo cursor) {
+            if (cursor == null || cursor.getId() == null) {
+                return 0;
+            }
+            int fila = Arrays.binarySearch(ids, cursor.getId());
+            if (fila >= 0) {
+                return posiciones[tipoOrden][fila] + 1;
+            }
+            // El producto del cursor ya no existe: se compara por la clave guardada en el cursor
+            int[] permutacion = permutaciones[tipoOrden];
+            for (int i = 0; i < permutacion.length; i++) {
+                if (compararConCursor(tipoOrden, permutacion[i], cursor) > 0) {
+                    return i;
+                }
+            }
+            return permutacion.length;
+        }
+
+        private int compararConCursor(int tipoOrden, int fila, CursorCatalogo cursor) {
+            int c = switch (tipoOrden) {
+                case ORDEN_PRECIO_ASC -> Double.compare(precios[fila], Double.parseDouble(cursor.getValor()));
+                case ORDEN_PRECIO_DESC -> Double.compare(Double.parseDouble(cursor.getValor()), precios[fila]);
+                case ORDEN_NOMBRE_ASC -> COLLATOR.compare(nombres[fila], cursor.getValor());
+                default -> 0;
+            };
+            return c != 0 ? c : Long.compare(ids[fila], cursor.getId());
+        }
+
+        String nombreCategoria(Long categoriaId) {
+            if (categoriaId == null) {
+                return null;
+            }
+            for (int c = 0; c < idsCategoria.length; c++) {
+                if (idsCategoria[c] == categoriaId.longValue()) {
+                    return nombresCategoria[c];
+                }
+            }
+            return null;
+        }
+
+        List<FilaCatalogo> filas() {
+            List<FilaCatalogo> filas = new ArrayList<>(ids.length + 1);
+            for (int i = 0; i < ids.length; i++) {
+                int c = categorias[i];
+                filas.add(new FilaCatalogo(ids[i], nombres[i], precios[i], activos.get(i),
+                        c >= 0 ? idsCategoria[c] : null,
+                        c >= 0 ? nombresCategoria[c] : null));
+            }
+            return filas;
+        }
+    }
+}
@@ -16,6 +16,12 @@ public class CategoriaServiceImpl implements CategoriaService {
     @Autowired
     private CategoriaRepository categoriaRepository;
 
+    @Autowired
+    private CatalogoSnapshot catalogoSnapshot;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
     @Override
     public List<Categoria> findAll() {
         return categoriaRepository.findAll();
@@ -28,11 +34,21 @@ public class CategoriaServiceImpl implements CategoriaService {
 
     @Override
     public Categoria save(Categoria categoria) {
-        return categoriaRepository.save(categoria);
+        Categoria guardada = categoriaRepository.save(categoria);
+        // El snapshot guarda los nombres de categoría usados para filtrar
+        if (catalogoSnapshot.disponible()) {
+            catalogoSnapshot.recargar();
+        }
+        versionCatalogo.incrementar();
+        return guardada;
     }
 
     @Override
     public void deleteById(Long id) {
         categoriaRepository.deleteById(id);
+        if (catalogoSnapshot.disponible()) {
+            catalogoSnapshot.recargar();
+        }
+        versionCatalogo.incrementar();
     }
 }
\ No newline at end of file
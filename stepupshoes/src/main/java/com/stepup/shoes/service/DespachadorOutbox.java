@@ -0,0 +1,100 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.EventoOutbox;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Procesa los eventos de la tabla outbox en segundo plano: toma lotes, corre
+ * los manejadores de cada evento en hilos virtuales y registra el resultado.
+ * Un evento fallido vuelve a intentarse más tarde (ver OutboxServiceImpl);
+ * uno tomado por una instancia que se cayó se libera al vencer su apartado.
+ */
+@Component
+public class DespachadorOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachadorOutbox.class);
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired(required = false)
+    private List<ManejadorEvento> manejadores = List.of();
+
+    @Value("${outbox.lote:100}")
+    private int tamanoLote;
+
+    // Una pasada no sigue tomando lotes más allá de este tiempo, para no ocupar el planificador
+    @Value("${outbox.presupuesto-ms:2000}")
+    private long presupuestoMs;
+
+    private final Map<String, List<ManejadorEvento>> porTipo = new HashMap<>();
+
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PostConstruct
+    public void init() {
+        for (ManejadorEvento manejador : manejadores) {
+            for (String tipo : manejador.tipos()) {
+                porTipo.computeIfAbsent(tipo, t -> new ArrayList<>()).add(manejador);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.intervalo-ms:500}")
+    public void despachar() {
+        long limite = System.currentTimeMillis() + presupuestoMs;
+        List<EventoOutbox> lote;
+        do {
+            lote = outboxService.tomarLote(tamanoLote);
+            if (lote.isEmpty()) {
+                return;
+            }
+            List<Callable<Void>> tareas = new ArrayList<>(lote.size());
+            for (EventoOutbox evento : lote) {
+                tareas.add(() -> {
+                    procesar(evento);
+                    return null;
+                });
+            }
+            try {
+                ejecutor.invokeAll(tareas);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        } while (lote.size() == tamanoLote && System.currentTimeMillis() < limite);
+    }
+
+    private void procesar(EventoOutbox evento) {
+        try {
+            for (ManejadorEvento manejador : porTipo.getOrDefault(evento.getTipo(), List.of())) {
+                manejador.manejar(evento);
+            }
+            outboxService.marcarProcesado(evento);
+        } catch (Exception e) {
+            log.warn("Evento {} ({}) falló en el intento {}: {}",
+                    evento.getId(), evento.getTipo(), evento.getIntentos(), e.getMessage());
+            outboxService.marcarError(evento, e);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdown();
+    }
+}
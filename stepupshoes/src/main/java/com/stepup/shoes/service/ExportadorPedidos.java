@@ -0,0 +1,204 @@
+package com.stepup.shoes.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stepup.shoes.model.Pedido;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exporta pedidos con sus líneas (CSV o NDJSON) escribiendo directo en la
+ * respuesta mientras se leen las filas.
+ *
+ * La consulta usa un cursor de solo avance: con fetchSize = Integer.MIN_VALUE
+ * el driver de MySQL entrega las filas de a una en vez de cargar el
+ * resultado completo, y no pasa por el contexto de persistencia de JPA. La
+ * memoria usada no depende de cuántos pedidos se exporten.
+ */
+@Component
+public class ExportadorPedidos {
+
+    public enum Formato {
+        CSV, NDJSON
+    }
+
+    private static final String SQL_EXPORTAR = """
+            SELECT p.id, p.numero_pedido, p.fecha_creacion, p.estado, p.total, u.email,
+                   d.producto_id, pr.nombre, d.talla, d.cantidad, d.precio
+            FROM pedidos p
+            LEFT JOIN usuarios u ON u.id = p.usuario_id
+            LEFT JOIN detalles_pedido d ON d.pedido_id = p.id
+            LEFT JOIN productos pr ON pr.id = d.producto_id
+            WHERE 1 = 1%s
+            ORDER BY p.id, d.id""";
+
+    private static final String ENCABEZADO_CSV =
+            "numero_pedido,fecha_creacion,estado,total,email,producto_id,producto,talla,cantidad,precio\n";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Plantilla propia: el fetchSize de streaming no debe afectar al resto de las consultas
+    private JdbcTemplate jdbcStreaming;
+
+    @PostConstruct
+    public void init() {
+        jdbcStreaming = new JdbcTemplate(dataSource);
+        jdbcStreaming.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Pedidos creados en [desde, hasta] (ambos opcionales) y en el estado indicado
+     * (null = todos), en orden de id.
+     */
+    public void exportar(OutputStream salida, Formato formato, LocalDate desde, LocalDate hasta,
+                         Pedido.EstadoPedido estado) throws IOException {
+        StringBuilder filtros = new StringBuilder();
+        List<Object> parametros = new ArrayList<>();
+        if (desde != null) {
+            filtros.append(" AND p.fecha_creacion >= ?");
+            parametros.add(Timestamp.valueOf(desde.atStartOfDay()));
+        }
+        if (hasta != null) {
+            filtros.append(" AND p.fecha_creacion < ?");
+            parametros.add(Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+        }
+        if (estado != null) {
+            filtros.append(" AND p.estado = ?");
+            parametros.add(estado.name());
+        }
+        String sql = String.format(SQL_EXPORTAR, filtros);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        try {
+            if (formato == Formato.CSV) {
+                writer.write(ENCABEZADO_CSV);
+                jdbcStreaming.query(sql, (RowCallbackHandler) rs -> escribirCsv(rs, writer), parametros.toArray());
+                writer.flush();
+            } else {
+                JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+                json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+                EscritorNdjson escritor = new EscritorNdjson(json);
+                jdbcStreaming.query(sql, (RowCallbackHandler) escritor::escribir, parametros.toArray());
+                escritor.terminar();
+                json.writeRaw('\n');
+                json.flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Una fila por línea de pedido (un pedido sin líneas sale con las columnas de línea vacías)
+    private void escribirCsv(ResultSet rs, Writer writer) throws SQLException {
+        try {
+            writer.write(csv(rs.getString(2)));
+            writer.write(',');
+            writer.write(csv(texto(rs.getTimestamp(3))));
+            writer.write(',');
+            writer.write(csv(rs.getString(4)));
+            writer.write(',');
+            writer.write(csv(rs.getString(5)));
+            writer.write(',');
+            writer.write(csv(rs.getString(6)));
+            writer.write(',');
+            writer.write(csv(rs.getString(7)));
+            writer.write(',');
+            writer.write(csv(rs.getString(8)));
+            writer.write(',');
+            writer.write(csv(rs.getString(9)));
+            writer.write(',');
+            writer.write(csv(rs.getString(10)));
+            writer.write(',');
+            writer.write(csv(rs.getString(11)));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    private static String texto(Timestamp fecha) {
+        return fecha != null ? fecha.toLocalDateTime().toString() : null;
+    }
+
+    /**
+     * Un objeto JSON por pedido con sus líneas. Las filas llegan ordenadas por
+     * pedido, así que solo se mantiene abierto el pedido actual.
+     */
+    private static final class EscritorNdjson {
+
+        private final JsonGenerator json;
+        private long pedidoActual = -1;
+
+        EscritorNdjson(JsonGenerator json) {
+            this.json = json;
+        }
+
+        void escribir(ResultSet rs) throws SQLException {
+            try {
+                long pedidoId = rs.getLong(1);
+                if (pedidoId != pedidoActual) {
+                    terminar();
+                    pedidoActual = pedidoId;
+                    json.writeStartObject();
+                    json.writeStringField("numeroPedido", rs.getString(2));
+                    json.writeStringField("fechaCreacion", texto(rs.getTimestamp(3)));
+                    json.writeStringField("estado", rs.getString(4));
+                    json.writeNumberField("total", rs.getDouble(5));
+                    json.writeStringField("email", rs.getString(6));
+                    json.writeArrayFieldStart("lineas");
+                }
+                if (rs.getObject(10) != null) {
+                    json.writeStartObject();
+                    json.writeNumberField("productoId", rs.getLong(7));
+                    json.writeStringField("producto", rs.getString(8));
+                    json.writeNumberField("talla", rs.getInt(9));
+                    json.writeNumberField("cantidad", rs.getInt(10));
+                    json.writeNumberField("precio", rs.getDouble(11));
+                    json.writeEndObject();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void terminar() throws IOException {
+            if (pedidoActual >= 0) {
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        }
+    }
+}
@@ -20,6 +20,9 @@ public class FirebaseStorageService {
     @Autowired
     private StorageClient storageClient;
     
+    @Autowired
+    private ImagenUrlResolver imagenUrlResolver;
+    
     @Value("${firebase.storage.bucket:stepup-shoes.appspot.com}")
     private String bucketName;
     
@@ -111,18 +114,8 @@ public class FirebaseStorageService {
      * Generar URL pública (sin token)
      */
     public String generatePublicUrl(String filePath) {
-        try {
-            String encodedPath = URLEncoder.encode(filePath, StandardCharsets.UTF_8.toString())
-                    .replace("+", "%20");
-            
-            return String.format(
-                "https://firebasestorage.googleapis.com/v0/b/%s/o/%s?alt=media",
-                bucketName,
-                encodedPath
-            );
-        } catch (Exception e) {
-            return null;
-        }
+        if (filePath == null) return null;
+        return imagenUrlResolver.urlPublica(filePath);
     }
     
     /**
@@ -166,6 +159,7 @@ public class FirebaseStorageService {
             String filePath = extractFilePathFromUrl(fileUrl);
             if (filePath == null) return false;
             
+            imagenUrlResolver.invalidar(filePath);
             Storage storage = storageClient.bucket().getStorage();
             return storage.delete(BlobId.of(bucketName, filePath));
         } catch (Exception e) {
@@ -0,0 +1,76 @@
+package com.stepup.shoes.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Números de pedido únicos sin consultar la base de datos (estilo Snowflake).
+ *
+ * Cada número es un long de 63 bits: 41 bits de milisegundos desde EPOCA,
+ * 10 bits del nodo (pedidos.nodo, distinto en cada instancia) y 12 bits de
+ * secuencia dentro del mismo milisegundo. Crecen con el tiempo, así que se
+ * insertan al final del índice único de numero_pedido en vez de en páginas
+ * al azar.
+ *
+ * El último (milisegundo, secuencia) se guarda en un solo AtomicLong y se
+ * avanza con CAS: no hay bloqueo. Si se agotan las 4096 secuencias de un
+ * milisegundo, o si el reloj retrocede, se sigue desde el último valor
+ * emitido, que nunca se repite.
+ */
+@Component
+public class GeneradorNumeroPedido {
+
+    // 2024-01-01T00:00:00Z: da margen de ~69 años con 41 bits
+    static final long EPOCA = 1704067200000L;
+
+    private static final int BITS_NODO = 10;
+    private static final int BITS_SECUENCIA = 12;
+    private static final long MAX_NODO = (1L << BITS_NODO) - 1;
+
+    private static final String PREFIJO = "PED";
+    private static final int DIGITOS = 19;
+
+    @Value("${pedidos.nodo:0}")
+    private long nodo;
+
+    // (milisegundos desde EPOCA << BITS_SECUENCIA) | secuencia, del último número emitido
+    private final AtomicLong ultimo = new AtomicLong();
+
+    @PostConstruct
+    public void validar() {
+        if (nodo < 0 || nodo > MAX_NODO) {
+            throw new IllegalStateException("pedidos.nodo debe estar entre 0 y " + MAX_NODO + ": " + nodo);
+        }
+    }
+
+    public long siguiente() {
+        long ahora = (System.currentTimeMillis() - EPOCA) << BITS_SECUENCIA;
+        long anterior;
+        long nuevo;
+        do {
+            anterior = ultimo.get();
+            // Nuevo milisegundo: secuencia 0; mismo milisegundo (o reloj atrasado): siguiente secuencia
+            nuevo = Math.max(ahora, anterior + 1);
+        } while (!ultimo.compareAndSet(anterior, nuevo));
+
+        long milis = nuevo >>> BITS_SECUENCIA;
+        long secuencia = nuevo & ((1L << BITS_SECUENCIA) - 1);
+        return (milis << (BITS_NODO + BITS_SECUENCIA)) | (nodo << BITS_SECUENCIA) | secuencia;
+    }
+
+    /**
+     * "PED" más el número con ceros a la izquierda, para que el orden
+     * alfabético coincida con el numérico.
+     */
+    public String siguienteNumero() {
+        String digitos = Long.toString(siguiente());
+        StringBuilder numero = new StringBuilder(PREFIJO.length() + DIGITOS).append(PREFIJO);
+        for (int i = digitos.length(); i < DIGITOS; i++) {
+            numero.append('0');
+        }
+        return numero.append(digitos).toString();
+    }
+}
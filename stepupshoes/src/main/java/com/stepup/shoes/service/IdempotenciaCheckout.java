@@ -0,0 +1,122 @@
+package com.stepup.shoes.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Evita pedidos duplicados por doble clic o reenvío del formulario de checkout.
+ *
+ * Cada formulario lleva una clave única. La primera petición con esa clave
+ * queda a cargo de registrar el pedido; las que llegan mientras tanto esperan
+ * su resultado y las posteriores lo encuentran en memoria (o, pasado el
+ * vencimiento o tras un reinicio, en la columna única pedidos.clave_idempotencia).
+ * Ninguna de ellas vuelve a ejecutar el registro.
+ */
+@Component
+public class IdempotenciaCheckout {
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Value("${checkout.idempotencia.ttl-minutos:30}")
+    private long ttlMinutos;
+
+    @Value("${checkout.idempotencia.max-claves:10000}")
+    private int maxClaves;
+
+    // Cuánto espera un duplicado a que termine la primera petición
+    @Value("${checkout.idempotencia.espera-ms:15000}")
+    private long esperaMs;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    // Resultado de una clave: id del pedido, o null si la petición a cargo no lo registró
+    private record Entrada(CompletableFuture<Long> pedidoId, long creada) {
+    }
+
+    /**
+     * Devuelve vacío si esta petición quedó a cargo de la clave (y debe llamar
+     * después a {@link #completar} o {@link #cancelar}); si no, el id del
+     * pedido ya registrado con ella.
+     */
+    public Optional<Long> reclamar(String clave, Long usuarioId) {
+        while (true) {
+            Entrada propia = new Entrada(new CompletableFuture<>(), System.currentTimeMillis());
+            Entrada existente = entradas.putIfAbsent(clave, propia);
+            if (existente == null) {
+                // Primera vez en esta instancia: puede que ya se haya registrado antes (reinicio, otro nodo)
+                Optional<Long> previo = pedidoService.findIdByClaveIdempotencia(clave, usuarioId);
+                if (previo.isPresent()) {
+                    propia.pedidoId().complete(previo.get());
+                }
+                return previo;
+            }
+            Long pedidoId = esperar(existente);
+            if (pedidoId != null) {
+                return Optional.of(pedidoId);
+            }
+            // La petición a cargo no registró el pedido: se vuelve a intentar tomar la clave
+            entradas.remove(clave, existente);
+        }
+    }
+
+    public void completar(String clave, Long pedidoId) {
+        Entrada entrada = entradas.get(clave);
+        if (entrada != null) {
+            entrada.pedidoId().complete(pedidoId);
+        }
+        if (entradas.size() > maxClaves) {
+            purgar();
+        }
+    }
+
+    // La petición terminó sin pedido (carrito vacío, precios cambiados, error): la clave queda libre
+    public void cancelar(String clave) {
+        Entrada entrada = entradas.remove(clave);
+        if (entrada != null) {
+            entrada.pedidoId().complete(null);
+        }
+    }
+
+    private Long esperar(Entrada entrada) {
+        try {
+            return entrada.pedidoId().get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pedido en proceso, intenta de nuevo en unos segundos", e);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new IllegalStateException("Pedido en proceso, intenta de nuevo en unos segundos", e);
+        }
+    }
+
+    /**
+     * Quita las claves terminadas y vencidas; si aun así se supera el máximo,
+     * también las terminadas más viejas (la columna única sigue respondiendo por ellas).
+     */
+    @Scheduled(fixedDelayString = "${checkout.idempotencia.limpieza-ms:60000}")
+    public void purgar() {
+        long limite = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ttlMinutos);
+        entradas.entrySet().removeIf(e -> e.getValue().pedidoId().isDone() && e.getValue().creada() < limite);
+
+        int sobrantes = entradas.size() - maxClaves;
+        if (sobrantes > 0) {
+            entradas.entrySet().stream()
+                    .filter(e -> e.getValue().pedidoId().isDone())
+                    .sorted(Map.Entry.comparingByValue((a, b) -> Long.compare(a.creada(), b.creada())))
+                    .limit(sobrantes)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(entradas::remove);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.stepup.shoes.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resuelve la URL pública de Firebase Storage de una imagen y la guarda en caché.
+ *
+ * Codificar la ruta y armar la URL se hace una sola vez por archivo; las vistas
+ * lo llaman varias veces por producto en cada render. La caché es LRU con
+ * tamaño máximo y la clave es el propio valor de imagenUrl, así que cuando un
+ * producto cambia de imagen se resuelve una entrada nueva y la vieja expira sola.
+ */
+@Component
+public class ImagenUrlResolver {
+
+    public static final String PLACEHOLDER = "https://via.placeholder.com/300x200?text=Sin+Imagen";
+
+    private static final String CARPETA_PRODUCTOS = "productos/";
+
+    @Value("${firebase.storage.bucket}")
+    private String bucket;
+
+    @Value("${firebase.storage.cache-urls:2000}")
+    private int capacidad;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private Map<String, String> cache;
+
+    private Counter aciertos;
+
+    private Timer resolucion;
+
+    @PostConstruct
+    public void init() {
+        aciertos = registry.counter("stepup.imagen.cache", "resultado", "acierto");
+        // Cada registro del timer es un fallo de caché (URL construida)
+        resolucion = registry.timer("stepup.imagen.resolucion");
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > capacidad;
+            }
+        });
+    }
+
+    /**
+     * URL final de la imagen de un producto a partir de Producto.imagenUrl
+     * (solo nombre de archivo, URL completa o vacío).
+     */
+    public String urlProducto(String imagenUrl) {
+        if (imagenUrl == null || imagenUrl.isBlank()) {
+            return PLACEHOLDER;
+        }
+        if (imagenUrl.startsWith("http://") || imagenUrl.startsWith("https://")) {
+            return imagenUrl;
+        }
+        return urlPublica(CARPETA_PRODUCTOS + imagenUrl);
+    }
+
+    /**
+     * URL pública (sin token) de un archivo del bucket, p. ej. "productos/nike.jpg".
+     */
+    public String urlPublica(String rutaArchivo) {
+        String url = cache.get(rutaArchivo);
+        if (url != null) {
+            aciertos.increment();
+            return url;
+        }
+        return cache.computeIfAbsent(rutaArchivo, ruta -> resolucion.record(() -> construir(ruta)));
+    }
+
+    public void invalidar(String rutaArchivo) {
+        cache.remove(rutaArchivo);
+    }
+
+    private String construir(String rutaArchivo) {
+        String rutaCodificada = URLEncoder.encode(rutaArchivo, StandardCharsets.UTF_8)
+                .replace("+", "%20");
+        return "https://firebasestorage.googleapis.com/v0/b/" + bucket + "/o/" + rutaCodificada + "?alt=media";
+    }
+}
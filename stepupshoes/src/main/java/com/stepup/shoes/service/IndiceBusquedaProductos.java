@@ -0,0 +1,242 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.Producto;
+import com.stepup.shoes.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria para la búsqueda de productos.
+ *
+ * Reemplaza el LIKE %termino% sobre nombre y descripción: los textos se
+ * normalizan (minúsculas, sin tildes, sin palabras vacías del español) y cada
+ * término apunta a los productos que lo contienen. Los resultados se ordenan
+ * con BM25, dando más peso a las coincidencias en el nombre. El costo de una
+ * búsqueda depende de la cantidad de productos que contienen los términos,
+ * no del tamaño de la tabla.
+ */
+@Component
+public class IndiceBusquedaProductos {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceBusquedaProductos.class);
+
+    // Parámetros estándar de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Una aparición en el nombre vale como dos en la descripción
+    private static final int PESO_NOMBRE = 2;
+
+    // Máximo de términos del índice que se expanden por prefijo para la última palabra
+    private static final int MAX_EXPANSION_PREFIJO = 20;
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "es", "la", "las", "lo", "los",
+            "o", "para", "por", "que", "se", "su", "sus", "un", "una", "unos", "unas", "y");
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // término -> (id producto -> frecuencia ponderada)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    // id producto -> términos indexados (para poder quitarlo al actualizar)
+    private final Map<Long, Map<String, Integer>> terminosPorProducto = new HashMap<>();
+
+    // id producto -> longitud ponderada del documento
+    private final Map<Long, Integer> longitudes = new HashMap<>();
+
+    private long longitudTotal;
+
+    private volatile boolean listo;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        List<Producto> productos = productoRepository.findByActivoTrue();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            terminosPorProducto.clear();
+            longitudes.clear();
+            longitudTotal = 0;
+            for (Producto producto : productos) {
+                agregar(producto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        listo = true;
+        log.info("Índice de búsqueda construido: {} productos, {} términos", productos.size(), postings.size());
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    /**
+     * Agrega o reemplaza un producto. Los inactivos se quitan del índice.
+     */
+    public void indexar(Producto producto) {
+        if (producto.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            quitar(producto.getId());
+            if (!Boolean.FALSE.equals(producto.getActivo())) {
+                agregar(producto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(Long id) {
+        lock.writeLock().lock();
+        try {
+            quitar(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids de los productos que coinciden con la consulta, de mayor a menor relevancia.
+     * La última palabra se busca también como prefijo ("zapat" encuentra "zapatilla").
+     */
+    public List<Long> buscar(String consulta, int limite) {
+        List<String> terminos = tokenizar(consulta);
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> puntajes = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int totalDocumentos = terminosPorProducto.size();
+            if (totalDocumentos == 0) {
+                return List.of();
+            }
+            double longitudPromedio = (double) longitudTotal / totalDocumentos;
+
+            Set<String> expandidos = new LinkedHashSet<>(terminos);
+            String ultimo = terminos.get(terminos.size() - 1);
+            postings.subMap(ultimo, true, ultimo + Character.MAX_VALUE, false).keySet().stream()
+                    .limit(MAX_EXPANSION_PREFIJO)
+                    .forEach(expandidos::add);
+
+            for (String termino : expandidos) {
+                Map<Long, Integer> documentos = postings.get(termino);
+                if (documentos == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (totalDocumentos - documentos.size() + 0.5) / (documentos.size() + 0.5));
+                for (Map.Entry<Long, Integer> entrada : documentos.entrySet()) {
+                    int frecuencia = entrada.getValue();
+                    int longitud = longitudes.getOrDefault(entrada.getKey(), 0);
+                    double tf = frecuencia * (K1 + 1)
+                            / (frecuencia + K1 * (1 - B + B * longitud / longitudPromedio));
+                    puntajes.merge(entrada.getKey(), idf * tf, Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return puntajes.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(limite)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // ===================================
+    // AUXILIARES (requieren el lock de escritura)
+    // ===================================
+    private void agregar(Producto producto) {
+        Map<String, Integer> frecuencias = new HashMap<>();
+        for (String termino : tokenizar(producto.getNombre())) {
+            frecuencias.merge(termino, PESO_NOMBRE, Integer::sum);
+        }
+        for (String termino : tokenizar(producto.getDescripcion())) {
+            frecuencias.merge(termino, 1, Integer::sum);
+        }
+        if (frecuencias.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, Integer> entrada : frecuencias.entrySet()) {
+            postings.computeIfAbsent(entrada.getKey(), t -> new HashMap<>())
+                    .put(producto.getId(), entrada.getValue());
+        }
+        int longitud = frecuencias.values().stream().mapToInt(Integer::intValue).sum();
+        terminosPorProducto.put(producto.getId(), frecuencias);
+        longitudes.put(producto.getId(), longitud);
+        longitudTotal += longitud;
+    }
+
+    private void quitar(Long id) {
+        Map<String, Integer> anteriores = terminosPorProducto.remove(id);
+        if (anteriores == null) {
+            return;
+        }
+        longitudTotal -= longitudes.remove(id);
+        for (Map.Entry<String, Integer> entrada : anteriores.entrySet()) {
+            Map<Long, Integer> documentos = postings.get(entrada.getKey());
+            if (documentos != null) {
+                documentos.remove(id);
+                if (documentos.isEmpty()) {
+                    postings.remove(entrada.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Minúsculas, sin tildes ni diéresis, sin palabras vacías y sin la "s" final
+     * del plural ("Zapatillas Cómodas" -> [zapatilla, comoda]).
+     */
+    static List<String> tokenizar(String texto) {
+        List<String> terminos = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return terminos;
+        }
+        String normalizado = MARCAS_DIACRITICAS
+                .matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String palabra : SEPARADORES.split(normalizado)) {
+            if (palabra.isEmpty() || PALABRAS_VACIAS.contains(palabra)) {
+                continue;
+            }
+            if (palabra.length() > 3 && palabra.endsWith("s")) {
+                palabra = palabra.substring(0, palabra.length() - 1);
+            }
+            terminos.add(palabra);
+        }
+        return terminos;
+    }
+}
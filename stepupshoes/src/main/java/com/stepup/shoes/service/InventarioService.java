@@ -0,0 +1,21 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.Carrito;
+import com.stepup.shoes.model.Producto;
+import java.util.Map;
+
+public interface InventarioService {
+    boolean reservar(String propietario, Long productoId, int talla, int cantidad);
+    void liberar(String propietario, Long productoId, int talla, int cantidad);
+    void liberarTodo(String propietario);
+    Map<Long, Integer> reservadas(String propietario);
+    void renovar(String propietario);
+    void transferir(String de, String a);
+    void confirmar(String propietario, Carrito carrito);
+    void reponer(Long productoId, int talla, int cantidad);
+    int liberarVencidas();
+    void volcarDiferidas();
+    void sincronizarStock(Producto producto);
+    int stockLibre(Long productoId, int talla, int stockTabla);
+    int stockDisponible(Long productoId);
+}
@@ -0,0 +1,399 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.dto.PrecioStock;
+import com.stepup.shoes.model.Carrito;
+import com.stepup.shoes.model.LineaCarrito;
+import com.stepup.shoes.model.Producto;
+import com.stepup.shoes.model.ProductoTalla;
+import com.stepup.shoes.model.ReservaStock;
+import com.stepup.shoes.model.ReservaStock.EstadoReserva;
+import com.stepup.shoes.repository.ProductoRepository;
+import com.stepup.shoes.repository.ProductoTallaRepository;
+import com.stepup.shoes.repository.ReservaStockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reservas de stock de los carritos.
+ *
+ * El stock de la talla se descuenta al agregar al carrito con un UPDATE
+ * condicional (stock >= cantidad), así dos compradores nunca se llevan la misma unidad
+ * aunque lleguen a la vez; el total de productos.stock se ajusta en la misma
+ * transacción. Cada reserva vence si el carrito se abandona y la
+ * limpieza periódica devuelve esas unidades. Al pagar, las reservas del
+ * carrito se confirman en la misma transacción que el pedido.
+ *
+ * Los productos calientes (inventario.caliente.productos) descuentan de los
+ * contadores de {@link StockCaliente} en lugar de las filas de la base; sus
+ * reservas quedan marcadas como diferidas y se vuelcan a la tabla en lotes.
+ * Como cada reserva diferida está guardada, al arrancar se vuelcan las que
+ * quedaron pendientes (p. ej. tras una caída) antes de cargar los contadores.
+ */
+@Service
+public class InventarioServiceImpl implements InventarioService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventarioServiceImpl.class);
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoTallaRepository productoTallaRepository;
+
+    @Autowired
+    private ReservaStockRepository reservaStockRepository;
+
+    @Autowired
+    private StockCaliente stockCaliente;
+
+    @Value("${inventario.reserva.ttl-minutos:15}")
+    private long ttlMinutos;
+
+    @Override
+    @Transactional
+    public boolean reservar(String propietario, Long productoId, int talla, int cantidad) {
+        if (cantidad <= 0) {
+            return false;
+        }
+        boolean diferida = stockCaliente.gestiona(productoId);
+        if (!descontar(productoId, talla, cantidad, diferida)) {
+            return false;
+        }
+        LocalDateTime expiraEn = vencimiento();
+        if (reservaStockRepository.sumarCantidad(propietario, productoId, talla, cantidad, diferida, expiraEn) == 0) {
+            reservaStockRepository.save(nuevaReserva(propietario, productoId, talla, cantidad,
+                    EstadoReserva.ACTIVA, diferida, expiraEn));
+        }
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public void liberar(String propietario, Long productoId, int talla, int cantidad) {
+        int restante = cantidad;
+        List<ReservaStock> reservas = reservaStockRepository.findByPropietarioAndProductoIdAndTallaAndEstado(
+                propietario, productoId, talla, EstadoReserva.ACTIVA);
+        for (ReservaStock reserva : reservas) {
+            if (restante <= 0) {
+                break;
+            }
+            int unidades = Math.min(restante, reserva.getCantidad());
+            // Cada cambio es condicional: si la limpieza ya la liberó, no se devuelve dos veces
+            boolean aplicado = unidades == reserva.getCantidad()
+                    ? devolver(reserva, unidades, diferida -> reservaStockRepository.cambiarEstado(
+                            reserva.getId(), EstadoReserva.ACTIVA, EstadoReserva.LIBERADA, diferida))
+                    : devolver(reserva, unidades, diferida -> reservaStockRepository.restarCantidad(
+                            reserva.getId(), unidades, diferida));
+            if (aplicado) {
+                restante -= unidades;
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void liberarTodo(String propietario) {
+        for (ReservaStock reserva : reservaStockRepository.findByPropietarioAndEstado(propietario, EstadoReserva.ACTIVA)) {
+            liberarCompleta(reserva);
+        }
+    }
+
+    /**
+     * Unidades reservadas por el propietario, por clave de línea del carrito.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> reservadas(String propietario) {
+        Map<Long, Integer> cantidades = new HashMap<>();
+        for (ReservaStock reserva : reservaStockRepository.findByPropietarioAndEstado(propietario, EstadoReserva.ACTIVA)) {
+            cantidades.merge(LineaCarrito.clave(reserva.getProductoId(), reserva.getTalla()),
+                    reserva.getCantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+
+    @Override
+    @Transactional
+    public void renovar(String propietario) {
+        reservaStockRepository.renovar(propietario, vencimiento());
+    }
+
+    // El carrito de invitado pasó al usuario al iniciar sesión: sus reservas lo acompañan
+    @Override
+    @Transactional
+    public void transferir(String de, String a) {
+        reservaStockRepository.transferir(de, a, vencimiento());
+    }
+
+    /**
+     * Confirma las reservas del carrito al registrar el pedido. Si alguna venció
+     * mientras tanto, se intenta descontar de nuevo lo que falta; si ya no hay
+     * stock, se lanza una excepción y la transacción del pedido se revierte.
+     */
+    @Override
+    @Transactional
+    public void confirmar(String propietario, Carrito carrito) {
+        // Renovar primero: la limpieza ya no puede liberar estas reservas mientras se confirman
+        renovar(propietario);
+        Map<Long, Integer> reservadas = reservadas(propietario);
+
+        // Reservas de líneas que ya no están en el carrito
+        for (ReservaStock reserva : reservaStockRepository.findByPropietarioAndEstado(propietario, EstadoReserva.ACTIVA)) {
+            if (carrito.buscar(reserva.getProductoId(), reserva.getTalla()) == null) {
+                liberarCompleta(reserva);
+            }
+        }
+
+        for (LineaCarrito linea : carrito.getLineas()) {
+            int reservado = reservadas.getOrDefault(linea.getClave(), 0);
+            int falta = linea.getCantidad() - reservado;
+            if (falta > 0) {
+                boolean diferida = stockCaliente.gestiona(linea.getProductoId());
+                if (!descontar(linea.getProductoId(), linea.getTalla(), falta, diferida)) {
+                    throw new IllegalStateException("Stock insuficiente para " + linea.getNombre()
+                            + " en talla " + linea.getTalla());
+                }
+                reservaStockRepository.save(nuevaReserva(propietario, linea.getProductoId(), linea.getTalla(),
+                        falta, EstadoReserva.CONFIRMADA, diferida, LocalDateTime.now()));
+            } else if (falta < 0) {
+                liberar(propietario, linea.getProductoId(), linea.getTalla(), -falta);
+            }
+        }
+        reservaStockRepository.confirmarActivas(propietario);
+    }
+
+    /**
+     * Devuelve al stock unidades ya vendidas (pedido cancelado). Debe llamarse en
+     * la transacción que cancela el pedido; el contador en memoria de un producto
+     * caliente se repone al confirmarse.
+     */
+    @Override
+    @Transactional
+    public void reponer(Long productoId, int talla, int cantidad) {
+        if (cantidad <= 0 || productoTallaRepository.devolverStock(productoId, talla, cantidad) == 0) {
+            return;
+        }
+        productoRepository.ajustarStockTotal(productoId, cantidad);
+        if (stockCaliente.gestiona(productoId)) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stockCaliente.devolver(productoId, talla, cantidad);
+                }
+            });
+        }
+    }
+
+    /**
+     * Devuelve al stock las reservas de carritos abandonados.
+     */
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${inventario.reserva.limpieza-ms:60000}")
+    public int liberarVencidas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int liberadas = 0;
+        for (ReservaStock reserva : reservaStockRepository
+                .findTop500ByEstadoAndExpiraEnBeforeOrderByExpiraEn(EstadoReserva.ACTIVA, ahora)) {
+            if (devolver(reserva, reserva.getCantidad(),
+                    diferida -> reservaStockRepository.liberarSiVencida(reserva.getId(), ahora, diferida))) {
+                liberadas++;
+            }
+        }
+        if (liberadas > 0) {
+            log.info("Reservas de stock vencidas liberadas: {}", liberadas);
+        }
+        return liberadas;
+    }
+
+    // ===================================
+    // STOCK CALIENTE
+    // ===================================
+
+    /**
+     * Aplica a la base, con una actualización por talla y una para el total del
+     * producto, las unidades de las reservas diferidas vigentes o confirmadas.
+     */
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${inventario.caliente.volcado-ms:1000}")
+    public void volcarDiferidas() {
+        for (Long productoId : reservaStockRepository.findProductosConDiferidas()) {
+            List<ReservaStock> diferidas = reservaStockRepository.bloquearDiferidas(productoId);
+            if (diferidas.isEmpty()) {
+                continue;
+            }
+            Map<Integer, Long> porTalla = diferidas.stream()
+                    .filter(r -> r.getEstado() != EstadoReserva.LIBERADA)
+                    .collect(Collectors.groupingBy(ReservaStock::getTalla, TreeMap::new,
+                            Collectors.summingLong(ReservaStock::getCantidad)));
+            long total = 0;
+            for (Map.Entry<Integer, Long> talla : porTalla.entrySet()) {
+                productoTallaRepository.volcarDescuento(productoId, talla.getKey(), talla.getValue());
+                total += talla.getValue();
+            }
+            if (total > 0) {
+                productoRepository.ajustarStockTotal(productoId, -total);
+            }
+            reservaStockRepository.marcarVolcadas(diferidas.stream().map(ReservaStock::getId).toList());
+        }
+    }
+
+    /**
+     * Al arrancar: vuelca lo pendiente y carga los contadores desde la tabla.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void inicializarStockCaliente() {
+        if (stockCaliente.getProductosCalientes().isEmpty()) {
+            return;
+        }
+        volcarDiferidas();
+        for (PrecioStock fila : productoRepository.findPrecioStockByIdIn(stockCaliente.getProductosCalientes())) {
+            if (fila.getTalla() != null) {
+                stockCaliente.inicializar(fila.getId(), fila.getTalla(), fila.getStock());
+            }
+        }
+        log.info("Stock en memoria para productos calientes: {}", stockCaliente.getProductosCalientes());
+    }
+
+    /**
+     * Después de que un administrador cambió el stock de un producto caliente,
+     * cada contador pasa a ser el nuevo stock de la talla menos lo que aún no se volcó.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void sincronizarStock(Producto producto) {
+        if (!stockCaliente.gestiona(producto.getId()) || producto.getTallas() == null) {
+            return;
+        }
+        for (ProductoTalla talla : producto.getTallas()) {
+            long pendientes = reservaStockRepository.sumarDiferidas(producto.getId(), talla.getTalla());
+            stockCaliente.ajustar(producto.getId(), talla.getTalla(), talla.getStock() - pendientes);
+        }
+    }
+
+    @Override
+    public int stockLibre(Long productoId, int talla, int stockTabla) {
+        return stockCaliente.gestiona(productoId)
+                ? (int) stockCaliente.disponible(productoId, talla)
+                : stockTabla;
+    }
+
+    /**
+     * Unidades libres de un producto sumando todas sus tallas. Se consulta en cada
+     * petición (no forma parte de las páginas cacheadas del catálogo).
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public int stockDisponible(Long productoId) {
+        int total = 0;
+        for (Object[] fila : productoTallaRepository.findStockPorTalla(productoId)) {
+            int talla = (Integer) fila[0];
+            int stockTabla = fila[1] != null ? (Integer) fila[1] : 0;
+            total += Math.max(0, stockLibre(productoId, talla, stockTabla));
+        }
+        return total;
+    }
+
+    // ===================================
+    // AUXILIARES
+    // ===================================
+    private boolean descontar(Long productoId, int talla, int cantidad, boolean enMemoria) {
+        if (cantidad <= 0) {
+            return false;
+        }
+        if (!enMemoria) {
+            if (productoTallaRepository.descontarStock(productoId, talla, cantidad) == 0) {
+                return false;
+            }
+            productoRepository.ajustarStockTotal(productoId, -cantidad);
+            return true;
+        }
+        if (!stockCaliente.descontar(productoId, talla, cantidad)) {
+            return false;
+        }
+        // Si la transacción no se confirma, las unidades vuelven al contador
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    stockCaliente.devolver(productoId, talla, cantidad);
+                }
+            }
+        });
+        return true;
+    }
+
+    private boolean liberarCompleta(ReservaStock reserva) {
+        return devolver(reserva, reserva.getCantidad(), diferida -> reservaStockRepository.cambiarEstado(
+                reserva.getId(), EstadoReserva.ACTIVA, EstadoReserva.LIBERADA, diferida));
+    }
+
+    /**
+     * Ejecuta la actualización condicional de la reserva y, si esta llamada la
+     * ganó, devuelve las unidades: a la base si ya estaban descontadas allí y
+     * al contador en memoria si el producto es caliente.
+     */
+    private boolean devolver(ReservaStock reserva, int unidades, Function<Boolean, Integer> actualizacion) {
+        boolean diferida = Boolean.TRUE.equals(reserva.getDiferida());
+        int filas = actualizacion.apply(diferida);
+        if (filas == 0 && diferida) {
+            // El volcado la pasó a la tabla mientras tanto
+            diferida = false;
+            filas = actualizacion.apply(false);
+        }
+        if (filas == 0) {
+            return false;
+        }
+        Long productoId = reserva.getProductoId();
+        int talla = reserva.getTalla();
+        if (!diferida) {
+            productoTallaRepository.devolverStock(productoId, talla, unidades);
+            productoRepository.ajustarStockTotal(productoId, unidades);
+        }
+        if (stockCaliente.gestiona(productoId)) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    stockCaliente.devolver(productoId, talla, unidades);
+                }
+            });
+        }
+        return true;
+    }
+
+    private ReservaStock nuevaReserva(String propietario, Long productoId, int talla, int cantidad,
+                                      EstadoReserva estado, boolean diferida, LocalDateTime expiraEn) {
+        ReservaStock reserva = new ReservaStock();
+        reserva.setPropietario(propietario);
+        reserva.setProductoId(productoId);
+        reserva.setTalla(talla);
+        reserva.setCantidad(cantidad);
+        reserva.setEstado(estado);
+        reserva.setDiferida(diferida);
+        reserva.setExpiraEn(expiraEn);
+        return reserva;
+    }
+
+    private LocalDateTime vencimiento() {
+        return LocalDateTime.now().plusMinutes(ttlMinutos);
+    }
+}
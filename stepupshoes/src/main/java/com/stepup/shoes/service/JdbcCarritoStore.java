@@ -0,0 +1,129 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.Carrito;
+import com.stepup.shoes.model.LineaCarrito;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carrito en la tabla carrito_lineas, una fila por (propietario, producto, talla).
+ *
+ * Guardar escribe solo las líneas que cambiaron desde la carga (upsert) y
+ * borra las quitadas, así /carrito/actualizar toca una fila y no el carrito
+ * completo. El propietario es el usuario si hay sesión iniciada (el carrito
+ * lo sigue entre dispositivos y reinicios) y si no el carrito de la sesión
+ * (ver {@link CarritoStore#propietarioSesion}); al iniciar sesión las líneas
+ * de invitado se suman al carrito del usuario.
+ */
+@Component
+@ConditionalOnProperty(name = "carrito.store", havingValue = "jdbc")
+public class JdbcCarritoStore implements CarritoStore {
+
+    private static final String SQL_CREAR_TABLA = """
+            CREATE TABLE IF NOT EXISTS carrito_lineas (
+                propietario VARCHAR(64) NOT NULL,
+                producto_id BIGINT NOT NULL,
+                talla INT NOT NULL,
+                nombre VARCHAR(255),
+                imagen VARCHAR(255),
+                precio DOUBLE NOT NULL,
+                stock INT NOT NULL,
+                cantidad INT NOT NULL,
+                agregada TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+                PRIMARY KEY (propietario, producto_id, talla)
+            )""";
+
+    private static final String SQL_CARGAR = """
+            SELECT producto_id, talla, nombre, imagen, precio, stock, cantidad
+            FROM carrito_lineas WHERE propietario = ?
+            ORDER BY agregada, producto_id, talla""";
+
+    private static final String SQL_UPSERT = """
+            INSERT INTO carrito_lineas (propietario, producto_id, talla, nombre, imagen, precio, stock, cantidad)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE precio = VALUES(precio), stock = VALUES(stock), cantidad = VALUES(cantidad)""";
+
+    private static final String SQL_BORRAR_LINEA =
+            "DELETE FROM carrito_lineas WHERE propietario = ? AND producto_id = ? AND talla = ?";
+
+    private static final String SQL_BORRAR_CARRITO = "DELETE FROM carrito_lineas WHERE propietario = ?";
+
+    // Las reservas de ambas líneas pasan al usuario, así que las cantidades se suman
+    private static final String SQL_TRANSFERIR = """
+            INSERT INTO carrito_lineas (propietario, producto_id, talla, nombre, imagen, precio, stock, cantidad)
+            SELECT ?, producto_id, talla, nombre, imagen, precio, stock, cantidad
+            FROM carrito_lineas WHERE propietario = ?
+            ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad)""";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void crearTabla() {
+        jdbcTemplate.execute(SQL_CREAR_TABLA);
+    }
+
+    @Override
+    public String propietario(HttpSession session) {
+        Object usuarioId = session.getAttribute("usuarioId");
+        return usuarioId != null ? "u:" + usuarioId : CarritoStore.propietarioSesion(session);
+    }
+
+    @Override
+    @Transactional
+    public void transferir(String de, String a) {
+        jdbcTemplate.update(SQL_TRANSFERIR, a, de);
+        jdbcTemplate.update(SQL_BORRAR_CARRITO, de);
+    }
+
+    @Override
+    public Carrito cargar(HttpSession session) {
+        Carrito carrito = new Carrito();
+        jdbcTemplate.query(SQL_CARGAR, rs -> {
+            carrito.agregar(new LineaCarrito(rs.getLong(1), rs.getInt(2), rs.getString(3), rs.getString(4),
+                    rs.getDouble(5), rs.getInt(6), rs.getInt(7)));
+        }, propietario(session));
+        carrito.confirmarCambios();
+        return carrito;
+    }
+
+    @Override
+    public void guardar(HttpSession session, Carrito carrito) {
+        if (!carrito.tieneCambios()) {
+            return;
+        }
+        String propietario = propietario(session);
+
+        List<Object[]> borrados = new ArrayList<>();
+        for (LineaCarrito linea : carrito.lineasEliminadas()) {
+            borrados.add(new Object[]{propietario, linea.getProductoId(), linea.getTalla()});
+        }
+        if (!borrados.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_BORRAR_LINEA, borrados);
+        }
+
+        List<Object[]> cambios = new ArrayList<>();
+        for (LineaCarrito linea : carrito.lineasModificadas()) {
+            cambios.add(new Object[]{propietario, linea.getProductoId(), linea.getTalla(), linea.getNombre(),
+                    linea.getImagen(), linea.getPrecio(), linea.getStock(), linea.getCantidad()});
+        }
+        if (!cambios.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_UPSERT, cambios);
+        }
+
+        carrito.confirmarCambios();
+    }
+
+    @Override
+    public void eliminar(HttpSession session) {
+        jdbcTemplate.update(SQL_BORRAR_CARRITO, propietario(session));
+    }
+}
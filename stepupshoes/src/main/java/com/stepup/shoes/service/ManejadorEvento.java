@@ -0,0 +1,21 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.EventoOutbox;
+import java.util.Set;
+
+/**
+ * Tarea que se ejecuta después de que un evento quedó confirmado (correo,
+ * métricas, sincronizaciones). Para agregar una basta con declarar un bean
+ * que implemente esta interfaz.
+ *
+ * La entrega es "al menos una vez": si un manejador falla, el evento se
+ * reintenta con todos sus manejadores, así que cada uno debe tolerar recibir
+ * el mismo evento más de una vez.
+ */
+public interface ManejadorEvento {
+
+    // Tipos de evento que atiende (ver OutboxService)
+    Set<String> tipos();
+
+    void manejar(EventoOutbox evento) throws Exception;
+}
@@ -0,0 +1,47 @@
+package com.stepup.shoes.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stepup.shoes.model.EventoOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Pedidos registrados y su monto, fuera del camino del checkout.
+ */
+@Component
+public class MetricasPedidos implements ManejadorEvento {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Counter pedidos;
+    private DistributionSummary montos;
+
+    @PostConstruct
+    public void init() {
+        pedidos = registry.counter("stepup.pedidos.registrados");
+        montos = registry.summary("stepup.pedidos.monto");
+    }
+
+    @Override
+    public Set<String> tipos() {
+        return Set.of(OutboxService.PEDIDO_REGISTRADO);
+    }
+
+    @Override
+    public void manejar(EventoOutbox evento) throws Exception {
+        JsonNode datos = objectMapper.readTree(evento.getDatos());
+        pedidos.increment();
+        montos.record(datos.path("total").asDouble());
+    }
+}
@@ -0,0 +1,74 @@
+package com.stepup.shoes.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Completa producto_tallas para los productos creados antes del stock por talla.
+ *
+ * Un producto sin filas de talla no se puede agregar al carrito y, al guardarlo,
+ * su total quedaría en 0. Al arrancar, a cada producto sin tallas se le crean las
+ * de inventario.tallas-iniciales repartiendo su productos.stock actual (el resto
+ * va a las primeras tallas), así el total no cambia. Los productos que ya tienen
+ * tallas no se tocan, por lo que es seguro en cada arranque.
+ */
+@Component
+public class MigracionTallas {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracionTallas.class);
+
+    private static final String SQL_SIN_TALLAS = """
+            SELECT p.id, COALESCE(p.stock, 0) AS stock FROM productos p
+            WHERE NOT EXISTS (SELECT 1 FROM producto_tallas t WHERE t.producto_id = p.id)""";
+
+    private static final String SQL_INSERTAR = "INSERT INTO producto_tallas (producto_id, talla, stock) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Se inyecta para que Hibernate ya haya creado/actualizado el esquema (producto_tallas)
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${inventario.tallas-iniciales:38,39,40,41,42}")
+    private int[] tallasIniciales;
+
+    @PostConstruct
+    public void completarTallas() {
+        if (tallasIniciales.length == 0) {
+            return;
+        }
+        int productos = transactionTemplate.execute(estado -> {
+            List<Map<String, Object>> sinTallas = jdbcTemplate.queryForList(SQL_SIN_TALLAS);
+            List<Object[]> filas = new ArrayList<>(sinTallas.size() * tallasIniciales.length);
+            for (Map<String, Object> producto : sinTallas) {
+                long id = ((Number) producto.get("id")).longValue();
+                int stock = Math.max(0, ((Number) producto.get("stock")).intValue());
+                int porTalla = stock / tallasIniciales.length;
+                int resto = stock % tallasIniciales.length;
+                for (int i = 0; i < tallasIniciales.length; i++) {
+                    filas.add(new Object[]{id, tallasIniciales[i], porTalla + (i < resto ? 1 : 0)});
+                }
+            }
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, filas);
+            return sinTallas.size();
+        });
+        if (productos > 0) {
+            log.info("Tallas iniciales creadas para {} productos sin stock por talla", productos);
+        }
+    }
+}
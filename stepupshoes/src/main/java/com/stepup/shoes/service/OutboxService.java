@@ -0,0 +1,24 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.EventoOutbox;
+import java.util.List;
+import java.util.Map;
+
+public interface OutboxService {
+
+    String PEDIDO_REGISTRADO = "PEDIDO_REGISTRADO";
+
+    // Un evento por lote de pedidos que cambiaron de estado juntos (ids, anterior, nuevo)
+    String PEDIDOS_ESTADO_CAMBIADO = "PEDIDOS_ESTADO_CAMBIADO";
+
+    // Debe llamarse dentro de la transacción que produce el evento
+    void publicar(String tipo, Long pedidoId, Map<String, Object> datos);
+
+    List<EventoOutbox> tomarLote(int limite);
+
+    void marcarProcesado(EventoOutbox evento);
+
+    void marcarError(EventoOutbox evento, Exception error);
+
+    int limpiarProcesados();
+}
@@ -0,0 +1,105 @@
+package com.stepup.shoes.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stepup.shoes.model.EventoOutbox;
+import com.stepup.shoes.model.EventoOutbox.EstadoEvento;
+import com.stepup.shoes.repository.EventoOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabla outbox_eventos: los eventos se escriben junto con el pedido y
+ * {@link DespachadorOutbox} los procesa después, en segundo plano.
+ */
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    private static final int LARGO_ERROR = 500;
+
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Tiempo que un lote tomado queda apartado antes de poder tomarse otra vez
+    @Value("${outbox.apartado-segundos:60}")
+    private long apartadoSegundos;
+
+    @Value("${outbox.max-intentos:8}")
+    private int maxIntentos;
+
+    // Espera antes del primer reintento; se duplica en cada fallo hasta espera-maxima
+    @Value("${outbox.espera-base-segundos:5}")
+    private long esperaBaseSegundos;
+
+    @Value("${outbox.espera-maxima-segundos:3600}")
+    private long esperaMaximaSegundos;
+
+    @Value("${outbox.retencion-dias:7}")
+    private long retencionDias;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicar(String tipo, Long pedidoId, Map<String, Object> datos) {
+        EventoOutbox evento = new EventoOutbox();
+        evento.setTipo(tipo);
+        evento.setPedidoId(pedidoId);
+        try {
+            evento.setDatos(objectMapper.writeValueAsString(datos));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Datos del evento " + tipo + " no serializables", e);
+        }
+        eventoOutboxRepository.save(evento);
+    }
+
+    @Override
+    @Transactional
+    public List<EventoOutbox> tomarLote(int limite) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<EventoOutbox> lote = eventoOutboxRepository.bloquearPendientes(ahora, limite);
+        if (lote.isEmpty()) {
+            return lote;
+        }
+        eventoOutboxRepository.apartar(lote.stream().map(EventoOutbox::getId).toList(),
+                ahora.plusSeconds(apartadoSegundos));
+        // La actualización masiva no toca las entidades ya cargadas
+        lote.forEach(e -> e.setIntentos(e.getIntentos() + 1));
+        return lote;
+    }
+
+    @Override
+    @Transactional
+    public void marcarProcesado(EventoOutbox evento) {
+        eventoOutboxRepository.marcarProcesado(evento.getId(), LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional
+    public void marcarError(EventoOutbox evento, Exception error) {
+        String mensaje = String.valueOf(error.getMessage());
+        if (mensaje.length() > LARGO_ERROR) {
+            mensaje = mensaje.substring(0, LARGO_ERROR);
+        }
+        int intentos = evento.getIntentos();
+        EstadoEvento estado = intentos >= maxIntentos ? EstadoEvento.FALLIDO : EstadoEvento.PENDIENTE;
+        long espera = Math.min(esperaBaseSegundos << Math.min(intentos - 1, 20), esperaMaximaSegundos);
+        eventoOutboxRepository.marcarError(evento.getId(), estado, LocalDateTime.now().plusSeconds(espera), mensaje);
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(fixedDelayString = "${outbox.limpieza-ms:3600000}")
+    public int limpiarProcesados() {
+        return eventoOutboxRepository.borrarProcesados(LocalDateTime.now().minusDays(retencionDias));
+    }
+}
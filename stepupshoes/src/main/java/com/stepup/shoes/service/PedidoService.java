@@ -4,16 +4,23 @@
  */
 package com.stepup.shoes.service;
 
+import com.stepup.shoes.dto.PaginaPedidos;
+import com.stepup.shoes.dto.ResultadoCambioEstado;
+import com.stepup.shoes.model.Carrito;
 import com.stepup.shoes.model.Pedido;
-import com.stepup.shoes.model.Usuario;
 import java.util.List;
 import java.util.Optional;
 
 public interface PedidoService {
     List<Pedido> findAll();
     Optional<Pedido> findById(Long id);
+    Optional<Pedido> findDetalleDeUsuario(Long id, Long usuarioId);
     Pedido save(Pedido pedido);
+    Pedido registrarPedido(Pedido pedido, Carrito carrito, String propietario);
+    Optional<Long> findIdByClaveIdempotencia(String clave, Long usuarioId);
     void deleteById(Long id);
-    List<Pedido> findByUsuario(Usuario usuario);
-    List<Pedido> findByUsuarioOrderByFechaCreacionDesc(Usuario usuario);
+    PaginaPedidos historial(Long usuarioId, String cursor);
+    List<ResultadoCambioEstado> cambiarEstado(List<Long> ids, Pedido.EstadoPedido nuevo);
+    // {cantidad de pedidos, monto total}
+    double[] totales(Long usuarioId);
 }
\ No newline at end of file
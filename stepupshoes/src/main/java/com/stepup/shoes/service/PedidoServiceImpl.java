@@ -3,20 +3,75 @@
  * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
  */
 package com.stepup.shoes.service;
+import com.stepup.shoes.dto.CursorPedidos;
+import com.stepup.shoes.dto.PaginaPedidos;
+import com.stepup.shoes.dto.ResultadoCambioEstado;
+import com.stepup.shoes.dto.ResumenPedido;
+import com.stepup.shoes.model.Carrito;
+import com.stepup.shoes.model.DetallePedido;
+import com.stepup.shoes.model.LineaCarrito;
 import com.stepup.shoes.model.Pedido;
-import com.stepup.shoes.model.Usuario;
+import com.stepup.shoes.model.Producto;
 import com.stepup.shoes.repository.PedidoRepository;
+import com.stepup.shoes.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PedidoServiceImpl implements PedidoService {
 
+    private static final Logger log = LoggerFactory.getLogger(PedidoServiceImpl.class);
+
+    // Si la tabla ya tenía detalles (ids IDENTITY), la secuencia emulada arranca después del mayor
+    private static final String SQL_ALINEAR_SECUENCIA = """
+            UPDATE detalles_pedido_seq
+            SET next_val = (SELECT COALESCE(MAX(id), 0) + 50 FROM detalles_pedido)
+            WHERE next_val <= (SELECT COALESCE(MAX(id), 0) FROM detalles_pedido)""";
+
     @Autowired
     private PedidoRepository pedidoRepository;
 
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${pedidos.tamano-pagina:20}")
+    private int tamanoPagina;
+
+    @Value("${pedidos.cambio-estado.lote:500}")
+    private int loteCambioEstado;
+
     @Override
     public List<Pedido> findAll() {
         return pedidoRepository.findAll();
@@ -27,23 +82,171 @@ public class PedidoServiceImpl implements PedidoService {
         return pedidoRepository.findById(id);
     }
 
+    @Override
+    public Optional<Pedido> findDetalleDeUsuario(Long id, Long usuarioId) {
+        return pedidoRepository.findDetalleDeUsuario(id, usuarioId);
+    }
+
     @Override
     public Pedido save(Pedido pedido) {
         return pedidoRepository.save(pedido);
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void alinearSecuenciaDetalles() {
+        if (jdbcTemplate.update(SQL_ALINEAR_SECUENCIA) > 0) {
+            log.info("Secuencia detalles_pedido_seq alineada con los detalles existentes");
+        }
+    }
+
+    /**
+     * Guarda el pedido con un detalle por línea del carrito y confirma las
+     * reservas de stock en una sola transacción: si falta stock, no queda
+     * pedido registrado.
+     *
+     * Los productos de todas las líneas se cargan en una consulta y los
+     * detalles se insertan en lote al hacer flush (ver hibernate.jdbc.batch_size).
+     * El evento PEDIDO_REGISTRADO se escribe en la misma transacción; lo que
+     * sigue al pedido (correo, métricas) corre después, fuera de la petición.
+     */
+    @Override
+    @Transactional
+    public Pedido registrarPedido(Pedido pedido, Carrito carrito, String propietario) {
+        inventarioService.confirmar(propietario, carrito);
+
+        Set<Long> ids = new HashSet<>();
+        for (LineaCarrito linea : carrito.getLineas()) {
+            ids.add(linea.getProductoId());
+        }
+        Map<Long, Producto> productos = productoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        List<DetallePedido> detalles = new ArrayList<>(carrito.getCantidadLineas());
+        for (LineaCarrito linea : carrito.getLineas()) {
+            Producto producto = productos.get(linea.getProductoId());
+            if (producto == null) {
+                throw new IllegalStateException("El producto " + linea.getNombre() + " ya no existe");
+            }
+            DetallePedido detalle = new DetallePedido();
+            detalle.setPedido(pedido);
+            detalle.setProducto(producto);
+            detalle.setCantidad(linea.getCantidad());
+            detalle.setPrecio(linea.getPrecio());
+            detalle.setTalla(linea.getTalla());
+            detalles.add(detalle);
+        }
+        pedido.setDetalles(detalles);
+
+        Pedido guardado = pedidoRepository.save(pedido);
+
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("numeroPedido", guardado.getNumeroPedido());
+        datos.put("usuarioId", guardado.getUsuario() != null ? guardado.getUsuario().getId() : null);
+        datos.put("total", guardado.getTotal());
+        outboxService.publicar(OutboxService.PEDIDO_REGISTRADO, guardado.getId(), datos);
+        return guardado;
+    }
+
+    @Override
+    public Optional<Long> findIdByClaveIdempotencia(String clave, Long usuarioId) {
+        return pedidoRepository.findIdByClaveIdempotencia(clave, usuarioId);
+    }
+
     @Override
     public void deleteById(Long id) {
         pedidoRepository.deleteById(id);
     }
 
+    // Se pide un pedido extra solo para saber si existe una página siguiente
+    @Override
+    public PaginaPedidos historial(Long usuarioId, String cursor) {
+        CursorPedidos desde = CursorPedidos.decodificar(cursor);
+        Limit limite = Limit.of(tamanoPagina + 1);
+        List<ResumenPedido> pedidos = desde == null
+                ? pedidoRepository.findResumenes(usuarioId, limite)
+                : pedidoRepository.findResumenesAntesDe(usuarioId, desde.getFecha(), desde.getId(), limite);
+
+        String siguienteCursor = null;
+        if (pedidos.size() > tamanoPagina) {
+            pedidos = pedidos.subList(0, tamanoPagina);
+            siguienteCursor = CursorPedidos.de(pedidos.get(tamanoPagina - 1)).codificar();
+        }
+        return new PaginaPedidos(pedidos, siguienteCursor);
+    }
+
+    /**
+     * Mueve varios pedidos al estado indicado. Solo cambian los que están en el
+     * estado anterior permitido (ver {@link Pedido.EstadoPedido#anterior()}).
+     * Se procesa de a lotes, cada uno en su transacción: un SELECT ... FOR UPDATE
+     * de los que califican, un UPDATE ... WHERE id IN (...) AND estado = ?, y un
+     * evento PEDIDOS_ESTADO_CAMBIADO con los ids del lote. Al cancelar, las
+     * unidades de los pedidos vuelven al stock en la misma transacción.
+     */
     @Override
-    public List<Pedido> findByUsuario(Usuario usuario) {
-        return pedidoRepository.findByUsuario(usuario);
+    public List<ResultadoCambioEstado> cambiarEstado(List<Long> ids, Pedido.EstadoPedido nuevo) {
+        List<Long> unicos = ids.stream().filter(Objects::nonNull).distinct().toList();
+        List<ResultadoCambioEstado> resultados = new ArrayList<>(unicos.size());
+
+        Pedido.EstadoPedido anterior = nuevo.anterior();
+        if (anterior == null) {
+            for (Long id : unicos) {
+                resultados.add(new ResultadoCambioEstado(id, false, "No se puede pasar un pedido a " + nuevo));
+            }
+            return resultados;
+        }
+
+        for (int desde = 0; desde < unicos.size(); desde += loteCambioEstado) {
+            List<Long> lote = unicos.subList(desde, Math.min(desde + loteCambioEstado, unicos.size()));
+            resultados.addAll(transactionTemplate.execute(estado -> cambiarEstadoLote(lote, anterior, nuevo)));
+        }
+        return resultados;
+    }
+
+    private List<ResultadoCambioEstado> cambiarEstadoLote(List<Long> lote, Pedido.EstadoPedido anterior,
+                                                          Pedido.EstadoPedido nuevo) {
+        Set<Long> cambiados = new HashSet<>(pedidoRepository.bloquearEnEstado(lote, anterior.name()));
+        if (!cambiados.isEmpty()) {
+            pedidoRepository.cambiarEstado(cambiados, anterior, nuevo);
+
+            // Un pedido cancelado devuelve sus unidades al stock de cada talla
+            if (nuevo == Pedido.EstadoPedido.CANCELADO) {
+                for (Object[] fila : pedidoRepository.sumarUnidadesPorTalla(cambiados)) {
+                    inventarioService.reponer((Long) fila[0], (Integer) fila[1], ((Number) fila[2]).intValue());
+                }
+            }
+
+            Map<String, Object> datos = new LinkedHashMap<>();
+            datos.put("ids", cambiados);
+            datos.put("anterior", anterior);
+            datos.put("nuevo", nuevo);
+            outboxService.publicar(OutboxService.PEDIDOS_ESTADO_CAMBIADO, null, datos);
+        }
+
+        // Estado actual solo si hay pedidos que no cambiaron, para explicar el motivo
+        Map<Long, Pedido.EstadoPedido> actuales = new HashMap<>();
+        if (cambiados.size() < lote.size()) {
+            for (Object[] fila : pedidoRepository.findEstados(lote)) {
+                actuales.put((Long) fila[0], (Pedido.EstadoPedido) fila[1]);
+            }
+        }
+
+        List<ResultadoCambioEstado> resultados = new ArrayList<>(lote.size());
+        for (Long id : lote) {
+            if (cambiados.contains(id)) {
+                resultados.add(new ResultadoCambioEstado(id, true, null));
+            } else if (!actuales.containsKey(id)) {
+                resultados.add(new ResultadoCambioEstado(id, false, "El pedido no existe"));
+            } else {
+                resultados.add(new ResultadoCambioEstado(id, false,
+                        "El pedido está " + actuales.get(id) + ", debe estar " + anterior));
+            }
+        }
+        return resultados;
     }
 
     @Override
-    public List<Pedido> findByUsuarioOrderByFechaCreacionDesc(Usuario usuario) {
-        return pedidoRepository.findByUsuarioOrderByFechaCreacionDesc(usuario);
+    public double[] totales(Long usuarioId) {
+        Object[] fila = pedidoRepository.totalesPorUsuario(usuarioId).get(0);
+        return new double[] {((Number) fila[0]).doubleValue(), ((Number) fila[1]).doubleValue()};
     }
 }
\ No newline at end of file
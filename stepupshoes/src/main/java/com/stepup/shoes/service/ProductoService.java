@@ -1,11 +1,15 @@
 package com.stepup.shoes.service;  // ¡IMPORTANTE!
 
+import com.stepup.shoes.dto.FacetasCatalogo;
+import com.stepup.shoes.dto.FiltroCatalogo;
+import com.stepup.shoes.dto.PaginaCatalogo;
 import com.stepup.shoes.model.Producto;
 import java.util.List;
 
 public interface ProductoService {
     List<Producto> findAll();
     Producto findById(Long id);
+    Producto findDetalleById(Long id);
     Producto save(Producto producto);
     void deleteById(Long id);
     List<Producto> findByCategoriaNombre(String categoria);
@@ -13,4 +17,7 @@ public interface ProductoService {
     List<Producto> findByCategoriaAndPrecioBetween(String categoria, Double precioMin, Double precioMax);
     List<Producto> buscarPorTermino(String termino);
     List<Producto> obtenerDestacados();
+    List<Integer> tallasDisponibles();
+    PaginaCatalogo buscarCatalogo(FiltroCatalogo filtro);
+    FacetasCatalogo calcularFacetas(FiltroCatalogo filtro);
 }
\ No newline at end of file
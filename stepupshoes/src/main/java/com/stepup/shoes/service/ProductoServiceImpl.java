@@ -1,16 +1,60 @@
 package com.stepup.shoes.service;  // ¡IMPORTANTE!
 
+import com.stepup.shoes.config.CatalogoProperties;
+import com.stepup.shoes.config.CatalogoProperties.RangoPrecio;
+import com.stepup.shoes.dto.CursorCatalogo;
+import com.stepup.shoes.dto.FacetasCatalogo;
+import com.stepup.shoes.dto.FiltroCatalogo;
+import com.stepup.shoes.dto.PaginaCatalogo;
 import com.stepup.shoes.model.Producto;
 import com.stepup.shoes.repository.ProductoRepository;
+import com.stepup.shoes.repository.ProductoTallaRepository;
+import com.stepup.shoes.repository.ProductoSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductoServiceImpl implements ProductoService {
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private ProductoTallaRepository productoTallaRepository;
+
+    @Autowired
+    private CatalogoSnapshot catalogoSnapshot;
+
+    @Autowired
+    private IndiceBusquedaProductos indiceBusqueda;
+
+    @Autowired
+    private CatalogoProperties catalogoProperties;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    @Autowired
+    private CacheDestacados cacheDestacados;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Value("${catalogo.tamano-pagina:24}")
+    private int tamanoPagina;
+
+    @Value("${busqueda.max-resultados:50}")
+    private int maxResultadosBusqueda;
+
     @Override
     public List<Producto> findAll() {
         return productoRepository.findAll();
@@ -21,14 +65,42 @@ public class ProductoServiceImpl implements ProductoService {
         return productoRepository.findById(id).orElse(null);
     }
 
+    @Override
+    public Producto findDetalleById(Long id) {
+        return productoRepository.findDetalleById(id).orElse(null);
+    }
+
     @Override
     public Producto save(Producto producto) {
-        return productoRepository.save(producto);
+        // Con stock por talla, el total del producto es la suma de sus tallas
+        if (producto.getTallas() != null && !producto.getTallas().isEmpty()) {
+            producto.setStock(producto.getTallas().stream()
+                    .mapToInt(t -> t.getStock() != null ? t.getStock() : 0)
+                    .sum());
+        }
+        Producto guardado = productoRepository.save(producto);
+        inventarioService.sincronizarStock(guardado);
+        catalogoSnapshot.actualizar(guardado);
+        indiceBusqueda.indexar(guardado);
+        versionCatalogo.incrementar();
+        // Cambió un destacado (o dejó de serlo): la página de inicio se actualiza de inmediato
+        // (refrescar() vuelve a incrementar la versión cuando la lista nueva ya está cargada)
+        if (Boolean.TRUE.equals(guardado.getDestacado()) || cacheDestacados.contiene(guardado.getId())) {
+            cacheDestacados.refrescar();
+        }
+        return guardado;
     }
 
     @Override
     public void deleteById(Long id) {
+        boolean eraDestacado = cacheDestacados.contiene(id);
         productoRepository.deleteById(id);
+        catalogoSnapshot.eliminar(id);
+        indiceBusqueda.eliminar(id);
+        versionCatalogo.incrementar();
+        if (eraDestacado) {
+            cacheDestacados.refrescar();
+        }
     }
 
     @Override
@@ -48,11 +120,175 @@ public class ProductoServiceImpl implements ProductoService {
 
     @Override
     public List<Producto> buscarPorTermino(String termino) {
-        return productoRepository.buscarPorTermino(termino);
+        // Mientras el índice se construye al arrancar se usa la consulta LIKE
+        if (!indiceBusqueda.isListo()) {
+            return productoRepository.buscarPorTermino(termino);
+        }
+        return cargarEnOrden(indiceBusqueda.buscar(termino, maxResultadosBusqueda));
     }
 
     @Override
     public List<Producto> obtenerDestacados() {
-        return productoRepository.findByDestacadoTrue();
+        return cacheDestacados.obtener();
+    }
+
+    // Opciones del filtro por talla: las que tienen stock en algún producto activo
+    @Override
+    public List<Integer> tallasDisponibles() {
+        return catalogoSnapshot.disponible()
+                ? catalogoSnapshot.tallas()
+                : productoTallaRepository.findTallasDisponibles();
+    }
+
+    // ✅ Se resuelve contra el snapshot en memoria; si no está disponible,
+    // filtro, orden y LIMIT se resuelven en una sola consulta SQL
+    @Override
+    public PaginaCatalogo buscarCatalogo(FiltroCatalogo filtro) {
+        String orden = filtro.getOrden();
+        double[] rango = rangoPrecio(filtro);
+        CursorCatalogo cursor = cursorValido(orden, CursorCatalogo.decodificar(filtro.getCursor()));
+
+        // Se pide un registro extra solo para saber si existe una página siguiente
+        List<Producto> productos = catalogoSnapshot.disponible()
+                ? buscarEnSnapshot(filtro, rango, cursor)
+                : buscarEnBaseDatos(filtro, rango, cursor);
+
+        String siguienteCursor = null;
+        if (productos.size() > tamanoPagina) {
+            productos = productos.subList(0, tamanoPagina);
+            Producto ultimo = productos.get(tamanoPagina - 1);
+            siguienteCursor = new CursorCatalogo(
+                    ProductoSpecifications.valorCursor(orden, ultimo), ultimo.getId()).codificar();
+        }
+
+        return new PaginaCatalogo(productos, siguienteCursor);
+    }
+
+    private List<Producto> buscarEnSnapshot(FiltroCatalogo filtro, double[] rango, CursorCatalogo cursor) {
+        long[] ids = new long[tamanoPagina + 1];
+        int total = catalogoSnapshot.buscar(filtro.getCategoria(), rango[0], rango[1], filtro.getTalla(),
+                filtro.getOrden(), cursor, ids);
+
+        List<Long> pagina = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            pagina.add(ids[i]);
+        }
+
+        return cargarEnOrden(pagina);
+    }
+
+    // Una sola consulta por ids, respetando el orden calculado en memoria
+    private List<Producto> cargarEnOrden(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Producto> porId = productoRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private List<Producto> buscarEnBaseDatos(FiltroCatalogo filtro, double[] rango, CursorCatalogo cursor) {
+        List<Specification<Producto>> criterios = new ArrayList<>();
+        criterios.add(ProductoSpecifications.activos());
+        criterios.add(ProductoSpecifications.conCategoria());
+
+        if (filtro.tieneCategoria()) {
+            criterios.add(ProductoSpecifications.deCategoria(filtro.getCategoria()));
+        }
+        if (rango[0] > 0) {
+            criterios.add(ProductoSpecifications.precioDesde(rango[0]));
+        }
+        if (rango[1] < Double.MAX_VALUE) {
+            criterios.add(ProductoSpecifications.precioHasta(rango[1]));
+        }
+        if (filtro.tieneTalla()) {
+            criterios.add(ProductoSpecifications.conStockEnTalla(filtro.getTalla()));
+        }
+        if (cursor != null) {
+            criterios.add(ProductoSpecifications.despuesDe(filtro.getOrden(), cursor));
+        }
+
+        Sort sort = ProductoSpecifications.ordenamiento(filtro.getOrden());
+        return productoRepository.findBy(
+                Specification.allOf(criterios),
+                q -> q.sortBy(sort).limit(tamanoPagina + 1).all());
+    }
+
+    @Override
+    public FacetasCatalogo calcularFacetas(FiltroCatalogo filtro) {
+        double[] rango = rangoPrecio(filtro);
+        List<RangoPrecio> rangos = catalogoProperties.getRangosPrecio();
+
+        if (catalogoSnapshot.disponible()) {
+            return catalogoSnapshot.facetas(filtro.getCategoria(), rango[0], rango[1], filtro.getTalla(), rangos);
+        }
+
+        // Sin snapshot: una consulta agregada y una pasada sobre los grupos (categoría, precio)
+        Map<String, Long> porCategoria = new LinkedHashMap<>();
+        Map<String, Long> porRango = new LinkedHashMap<>();
+        rangos.forEach(r -> porRango.put(r.getClave(), 0L));
+
+        List<Object[]> grupos = filtro.tieneTalla()
+                ? productoRepository.contarPorCategoriaYPrecioEnTalla(filtro.getTalla())
+                : productoRepository.contarPorCategoriaYPrecio();
+        for (Object[] grupo : grupos) {
+            String categoria = (String) grupo[0];
+            double precio = grupo[1] != null ? ((Number) grupo[1]).doubleValue() : 0.0;
+            long cantidad = ((Number) grupo[2]).longValue();
+
+            if (precio >= rango[0] && precio <= rango[1]) {
+                porCategoria.merge(categoria, cantidad, Long::sum);
+            } else {
+                porCategoria.putIfAbsent(categoria, 0L);
+            }
+            if (!filtro.tieneCategoria() || filtro.getCategoria().equalsIgnoreCase(categoria)) {
+                for (RangoPrecio r : rangos) {
+                    if (r.contiene(precio)) {
+                        porRango.merge(r.getClave(), cantidad, Long::sum);
+                    }
+                }
+            }
+        }
+        return new FacetasCatalogo(porCategoria, porRango);
+    }
+
+    // Rango {mínimo, máximo} inclusivo; sin filtro o clave desconocida equivale a {0, MAX_VALUE}
+    private double[] rangoPrecio(FiltroCatalogo filtro) {
+        RangoPrecio rango = filtro.tieneRangoPrecio()
+                ? catalogoProperties.buscarRango(filtro.getRangoPrecio())
+                : null;
+        if (rango == null) {
+            return new double[]{0.0, Double.MAX_VALUE};
+        }
+        return new double[]{rango.minimoEfectivo(), rango.maximoEfectivo()};
+    }
+
+    // Descarta cursores que no corresponden al orden actual (p. ej. URL editada a mano)
+    private CursorCatalogo cursorValido(String orden, CursorCatalogo cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        switch (orden == null ? "" : orden) {
+            case "precio-asc", "precio-desc" -> {
+                if (cursor.getValor() == null) {
+                    return null;
+                }
+                try {
+                    Double.parseDouble(cursor.getValor());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            case "nombre-asc" -> {
+                if (cursor.getValor() == null) {
+                    return null;
+                }
+            }
+            default -> { }
+        }
+        return cursor;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.Carrito;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carrito como atributo de la sesión. Con Spring Session JDBC la sesión se
+ * guarda en MySQL y solo se reescribe el atributo que cambió; el carrito se
+ * serializa con su formato compacto.
+ */
+@Component
+@ConditionalOnProperty(name = "carrito.store", havingValue = "sesion", matchIfMissing = true)
+public class SesionCarritoStore implements CarritoStore {
+
+    private static final String ATRIBUTO_CARRITO = "carrito";
+
+    // El carrito vive en la sesión, con o sin usuario: sus reservas también son de la sesión
+    @Override
+    public String propietario(HttpSession session) {
+        return CarritoStore.propietarioSesion(session);
+    }
+
+    @Override
+    public Carrito cargar(HttpSession session) {
+        Object carrito = session.getAttribute(ATRIBUTO_CARRITO);
+        return carrito instanceof Carrito c ? c : new Carrito();
+    }
+
+    @Override
+    public void guardar(HttpSession session, Carrito carrito) {
+        carrito.confirmarCambios();
+        // Se vuelve a asignar para que la sesión marque el atributo como modificado
+        session.setAttribute(ATRIBUTO_CARRITO, carrito);
+    }
+
+    @Override
+    public void eliminar(HttpSession session) {
+        session.removeAttribute(ATRIBUTO_CARRITO);
+    }
+}
@@ -0,0 +1,182 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.model.LineaCarrito;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stock en memoria de los productos marcados como "calientes" (una oferta o un
+ * modelo viral que todos agregan al carrito a la vez).
+ *
+ * Hay un contador por (producto, talla). Cada contador reparte su stock en
+ * varias franjas independientes; cada hilo
+ * descuenta con CAS de su franja y solo si no le alcanza toma de las demás.
+ * Así los descuentos concurrentes no compiten por una misma celda (ni por la
+ * misma fila de productos en MySQL) y el rendimiento crece con los núcleos.
+ * La tabla productos se actualiza después, en lotes, desde las reservas
+ * diferidas (ver InventarioServiceImpl).
+ */
+@Component
+public class StockCaliente {
+
+    // Separación entre franjas (8 longs = 64 bytes) para que no compartan línea de caché
+    private static final int RELLENO = 8;
+
+    @Value("${inventario.caliente.productos:}")
+    private Set<Long> productosCalientes;
+
+    @Value("${inventario.caliente.franjas:0}")
+    private int franjasConfiguradas;
+
+    // Clave (producto, talla) como en LineaCarrito.clave
+    private final Map<Long, Contador> contadores = new ConcurrentHashMap<>();
+
+    private final Set<Long> inicializados = ConcurrentHashMap.newKeySet();
+
+    public Set<Long> getProductosCalientes() {
+        return productosCalientes;
+    }
+
+    public boolean esCaliente(Long productoId) {
+        return productosCalientes.contains(productoId);
+    }
+
+    /**
+     * true si el producto es caliente y su contador ya fue inicializado; si no,
+     * el stock se maneja directamente en la base de datos.
+     */
+    public boolean gestiona(Long productoId) {
+        return inicializados.contains(productoId);
+    }
+
+    public void inicializar(Long productoId, int talla, long stock) {
+        int franjas = franjasConfiguradas > 0 ? franjasConfiguradas : Runtime.getRuntime().availableProcessors();
+        contadores.put(LineaCarrito.clave(productoId, talla), new Contador(franjas, stock));
+        inicializados.add(productoId);
+    }
+
+    // Una talla sin contador no existe para ese producto: no hay stock
+    public boolean descontar(Long productoId, int talla, int cantidad) {
+        Contador contador = contadores.get(LineaCarrito.clave(productoId, talla));
+        return contador != null && contador.descontar(cantidad);
+    }
+
+    public void devolver(Long productoId, int talla, int cantidad) {
+        Contador contador = contadores.get(LineaCarrito.clave(productoId, talla));
+        if (contador != null) {
+            contador.sumar(cantidad);
+        }
+    }
+
+    public long disponible(Long productoId, int talla) {
+        Contador contador = contadores.get(LineaCarrito.clave(productoId, talla));
+        return contador != null ? contador.total() : 0;
+    }
+
+    /**
+     * Lleva el contador al valor indicado (p. ej. después de que un administrador
+     * corrigió el stock) sin detener a los hilos que están descontando.
+     */
+    public void ajustar(Long productoId, int talla, long stock) {
+        Contador contador = contadores.get(LineaCarrito.clave(productoId, talla));
+        if (contador != null) {
+            contador.ajustar(stock - contador.total());
+        } else if (gestiona(productoId)) {
+            inicializar(productoId, talla, Math.max(stock, 0));
+        }
+    }
+
+    private static final class Contador {
+
+        private final int franjas;
+        private final AtomicLongArray celdas;
+
+        Contador(int franjas, long stock) {
+            this.franjas = franjas;
+            this.celdas = new AtomicLongArray(franjas * RELLENO);
+            for (int f = 0; f < franjas; f++) {
+                celdas.set(f * RELLENO, stock / franjas + (f < stock % franjas ? 1 : 0));
+            }
+        }
+
+        private int franjaPropia() {
+            return (int) (Thread.currentThread().threadId() % franjas);
+        }
+
+        boolean descontar(int cantidad) {
+            int propia = franjaPropia();
+            for (int i = 0; i < franjas; i++) {
+                int celda = ((propia + i) % franjas) * RELLENO;
+                long valor = celdas.get(celda);
+                while (valor >= cantidad) {
+                    if (celdas.compareAndSet(celda, valor, valor - cantidad)) {
+                        return true;
+                    }
+                    valor = celdas.get(celda);
+                }
+            }
+            return descontarRepartido(cantidad);
+        }
+
+        // Ninguna franja alcanza sola: se junta la cantidad tomando de varias
+        private synchronized boolean descontarRepartido(int cantidad) {
+            long[] tomado = new long[franjas];
+            long restante = tomar(cantidad, tomado);
+            if (restante > 0) {
+                // No hay stock suficiente: se devuelve lo tomado
+                for (int f = 0; f < franjas; f++) {
+                    if (tomado[f] > 0) {
+                        celdas.addAndGet(f * RELLENO, tomado[f]);
+                    }
+                }
+                return false;
+            }
+            return true;
+        }
+
+        // Toma hasta "cantidad" repartida entre las franjas; devuelve lo que no pudo tomar
+        private long tomar(long cantidad, long[] tomado) {
+            long restante = cantidad;
+            for (int f = 0; f < franjas && restante > 0; f++) {
+                int celda = f * RELLENO;
+                long valor = celdas.get(celda);
+                while (valor > 0) {
+                    long parte = Math.min(valor, restante);
+                    if (celdas.compareAndSet(celda, valor, valor - parte)) {
+                        tomado[f] = parte;
+                        restante -= parte;
+                        break;
+                    }
+                    valor = celdas.get(celda);
+                }
+            }
+            return restante;
+        }
+
+        void sumar(long cantidad) {
+            celdas.addAndGet(franjaPropia() * RELLENO, cantidad);
+        }
+
+        // Las franjas nunca quedan negativas: un ajuste hacia abajo toma de ellas como un descuento
+        synchronized void ajustar(long diferencia) {
+            if (diferencia >= 0) {
+                sumar(diferencia);
+            } else {
+                tomar(-diferencia, new long[franjas]);
+            }
+        }
+
+        long total() {
+            long total = 0;
+            for (int f = 0; f < franjas; f++) {
+                total += celdas.get(f * RELLENO);
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.stepup.shoes.service;
+
+import com.stepup.shoes.dto.FilaVentas;
+import com.stepup.shoes.model.Pedido;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface VentasService {
+
+    // agrupacion: "dia", "producto" o "categoria"; estado null = todos
+    List<FilaVentas> consultar(LocalDate desde, LocalDate hasta, String agrupacion, Pedido.EstadoPedido estado);
+
+    int reconstruir();
+}
@@ -0,0 +1,238 @@
+package com.stepup.shoes.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stepup.shoes.dto.FilaVentas;
+import com.stepup.shoes.model.EventoOutbox;
+import com.stepup.shoes.model.Pedido;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Acumulados de ventas en la tabla ventas_rollup: unidades e ingresos por
+ * (día, producto, categoría, estado del pedido). Los reportes leen solo esta
+ * tabla, nunca pedidos ni detalles_pedido.
+ *
+ * Se mantiene de forma incremental desde los eventos del outbox: un pedido
+ * registrado suma sus líneas en PENDIENTE y un cambio de estado las resta del
+ * estado anterior y las suma al nuevo. Cada evento se aplica una sola vez
+ * (ventas_rollup_eventos guarda los ya aplicados), aunque el outbox lo
+ * entregue más de una vez. {@link #reconstruir()} la recalcula desde el
+ * historial.
+ */
+@Service
+public class VentasServiceImpl implements VentasService, ManejadorEvento {
+
+    private static final Logger log = LoggerFactory.getLogger(VentasServiceImpl.class);
+
+    private static final String SQL_CREAR_TABLA = """
+            CREATE TABLE IF NOT EXISTS ventas_rollup (
+                dia DATE NOT NULL,
+                producto_id BIGINT NOT NULL,
+                categoria_id BIGINT NOT NULL,
+                estado VARCHAR(20) NOT NULL,
+                unidades BIGINT NOT NULL,
+                ingresos DOUBLE NOT NULL,
+                PRIMARY KEY (dia, producto_id, categoria_id, estado)
+            )""";
+
+    private static final String SQL_CREAR_TABLA_EVENTOS = """
+            CREATE TABLE IF NOT EXISTS ventas_rollup_eventos (
+                evento_id BIGINT NOT NULL PRIMARY KEY
+            )""";
+
+    // Producto o categoría desconocidos (detalles antiguos sin producto) se acumulan en 0
+    private static final String SQL_SELECT_LINEAS = """
+            SELECT DATE(p.fecha_creacion), COALESCE(d.producto_id, 0), COALESCE(pr.categoria_id, 0), %s,
+                   %s * SUM(d.cantidad), %s * SUM(d.cantidad * d.precio)
+            FROM pedidos p
+            JOIN detalles_pedido d ON d.pedido_id = p.id
+            LEFT JOIN productos pr ON pr.id = d.producto_id
+            WHERE %s
+            GROUP BY DATE(p.fecha_creacion), COALESCE(d.producto_id, 0), COALESCE(pr.categoria_id, 0)%s""";
+
+    private static final String SQL_INSERTAR = """
+            INSERT INTO ventas_rollup (dia, producto_id, categoria_id, estado, unidades, ingresos)
+            """;
+
+    private static final String SQL_ACUMULAR =
+            " ON DUPLICATE KEY UPDATE unidades = unidades + VALUES(unidades), ingresos = ingresos + VALUES(ingresos)";
+
+    private static final String SQL_MARCAR_EVENTO = "INSERT IGNORE INTO ventas_rollup_eventos (evento_id) VALUES (?)";
+
+    private static final Map<String, String> COLUMNAS_AGRUPACION = Map.of(
+            "dia", "CAST(dia AS CHAR)",
+            "producto", "CAST(producto_id AS CHAR)",
+            "categoria", "CAST(categoria_id AS CHAR)");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ventas.rollup.dias-por-lote:31}")
+    private int diasPorLote;
+
+    @Value("${ventas.rollup.hilos:4}")
+    private int hilos;
+
+    @PostConstruct
+    public void crearTablas() {
+        jdbcTemplate.execute(SQL_CREAR_TABLA);
+        jdbcTemplate.execute(SQL_CREAR_TABLA_EVENTOS);
+    }
+
+    // ===================================
+    // CONSULTAS PARA REPORTES
+    // ===================================
+    @Override
+    public List<FilaVentas> consultar(LocalDate desde, LocalDate hasta, String agrupacion, Pedido.EstadoPedido estado) {
+        String columna = COLUMNAS_AGRUPACION.get(agrupacion);
+        if (columna == null) {
+            throw new IllegalArgumentException("Agrupación no válida: " + agrupacion);
+        }
+        List<Object> parametros = new ArrayList<>(List.of(Date.valueOf(desde), Date.valueOf(hasta)));
+        String filtroEstado = "";
+        if (estado != null) {
+            filtroEstado = " AND estado = ?";
+            parametros.add(estado.name());
+        }
+        String sql = "SELECT " + columna + ", estado, SUM(unidades), SUM(ingresos) FROM ventas_rollup " +
+                "WHERE dia BETWEEN ? AND ?" + filtroEstado + " GROUP BY 1, estado ORDER BY 1, estado";
+        return jdbcTemplate.query(sql, (rs, fila) -> new FilaVentas(rs.getString(1),
+                Pedido.EstadoPedido.valueOf(rs.getString(2)), rs.getLong(3), rs.getDouble(4)),
+                parametros.toArray());
+    }
+
+    // ===================================
+    // ACTUALIZACIÓN INCREMENTAL (eventos del outbox)
+    // ===================================
+    @Override
+    public Set<String> tipos() {
+        return Set.of(OutboxService.PEDIDO_REGISTRADO, OutboxService.PEDIDOS_ESTADO_CAMBIADO);
+    }
+
+    @Override
+    @Transactional
+    public void manejar(EventoOutbox evento) throws Exception {
+        if (jdbcTemplate.update(SQL_MARCAR_EVENTO, evento.getId()) == 0) {
+            return;
+        }
+        if (OutboxService.PEDIDO_REGISTRADO.equals(evento.getTipo())) {
+            // Siempre PENDIENTE: si el estado ya cambió, su propio evento mueve las unidades
+            acumular(List.of(evento.getPedidoId()), Pedido.EstadoPedido.PENDIENTE, 1);
+        } else {
+            JsonNode datos = objectMapper.readTree(evento.getDatos());
+            List<Long> ids = new ArrayList<>();
+            datos.path("ids").forEach(id -> ids.add(id.asLong()));
+            acumular(ids, Pedido.EstadoPedido.valueOf(datos.path("anterior").asText()), -1);
+            acumular(ids, Pedido.EstadoPedido.valueOf(datos.path("nuevo").asText()), 1);
+        }
+    }
+
+    // Suma (signo 1) o resta (signo -1) las líneas de los pedidos bajo el estado indicado
+    private void acumular(List<Long> pedidoIds, Pedido.EstadoPedido estado, int signo) {
+        if (pedidoIds.isEmpty()) {
+            return;
+        }
+        String marcas = String.join(", ", Collections.nCopies(pedidoIds.size(), "?"));
+        String sql = SQL_INSERTAR + String.format(SQL_SELECT_LINEAS, "?", "?", "?", "p.id IN (" + marcas + ")", "")
+                + SQL_ACUMULAR;
+        List<Object> parametros = new ArrayList<>(List.of(estado.name(), signo, signo));
+        parametros.addAll(pedidoIds);
+        jdbcTemplate.update(sql, parametros.toArray());
+    }
+
+    // Un evento más viejo que el menor que queda en el outbox ya no puede volver a entregarse
+    @Scheduled(fixedDelayString = "${outbox.limpieza-ms:3600000}")
+    public void limpiarEventosAplicados() {
+        jdbcTemplate.update("DELETE FROM ventas_rollup_eventos WHERE evento_id < " +
+                "(SELECT COALESCE(MIN(id), " + Long.MAX_VALUE + ") FROM outbox_eventos)");
+    }
+
+    // ===================================
+    // RECONSTRUCCIÓN DESDE EL HISTORIAL
+    // ===================================
+    /**
+     * Recalcula la tabla desde pedidos y detalles_pedido, por tramos de días
+     * procesados en paralelo (cada tramo borra y vuelve a insertar sus días en
+     * una transacción). Los eventos ya creados al empezar se marcan como
+     * aplicados, porque su efecto ya está en el historial que se relee.
+     * Conviene correrla con poco tráfico: un cambio de estado confirmado
+     * mientras se procesa su tramo puede contarse dos veces.
+     */
+    @Override
+    public int reconstruir() {
+        jdbcTemplate.update("INSERT IGNORE INTO ventas_rollup_eventos (evento_id) " +
+                "SELECT id FROM outbox_eventos WHERE tipo IN (?, ?)",
+                OutboxService.PEDIDO_REGISTRADO, OutboxService.PEDIDOS_ESTADO_CAMBIADO);
+
+        List<LocalDate[]> rango = jdbcTemplate.query(
+                "SELECT DATE(MIN(fecha_creacion)), DATE(MAX(fecha_creacion)) FROM pedidos",
+                (rs, fila) -> rs.getDate(1) == null ? null
+                        : new LocalDate[] {rs.getDate(1).toLocalDate(), rs.getDate(2).toLocalDate()});
+        if (rango.isEmpty() || rango.get(0) == null) {
+            return 0;
+        }
+
+        List<Callable<Void>> tramos = new ArrayList<>();
+        for (LocalDate desde = rango.get(0)[0]; !desde.isAfter(rango.get(0)[1]); desde = desde.plusDays(diasPorLote)) {
+            LocalDate inicio = desde;
+            LocalDate fin = desde.plusDays(diasPorLote);
+            tramos.add(() -> {
+                transactionTemplate.executeWithoutResult(estado -> reconstruirTramo(inicio, fin));
+                return null;
+            });
+        }
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos, Thread.ofVirtual().factory());
+        try {
+            for (Future<Void> tramo : ejecutor.invokeAll(tramos)) {
+                tramo.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstrucción de ventas interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al reconstruir ventas", e.getCause());
+        } finally {
+            ejecutor.shutdown();
+        }
+        log.info("ventas_rollup reconstruida en {} tramos de {} días", tramos.size(), diasPorLote);
+        return tramos.size();
+    }
+
+    // Días [inicio, fin)
+    private void reconstruirTramo(LocalDate inicio, LocalDate fin) {
+        jdbcTemplate.update("DELETE FROM ventas_rollup WHERE dia >= ? AND dia < ?",
+                Date.valueOf(inicio), Date.valueOf(fin));
+        String sql = SQL_INSERTAR + String.format(SQL_SELECT_LINEAS, "p.estado", "1", "1",
+                "p.fecha_creacion >= ? AND p.fecha_creacion < ?", ", p.estado");
+        jdbcTemplate.update(sql, Date.valueOf(inicio), Date.valueOf(fin));
+    }
+}
@@ -0,0 +1,53 @@
+package com.stepup.shoes.service;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión del catálogo: cambia cada vez que se guarda o elimina un producto o una categoría.
+ *
+ * Sirve como validador barato para peticiones condicionales (ETag / Last-Modified):
+ * si el navegador ya tiene la versión actual se responde 304 sin consultar la base
+ * de datos ni renderizar la plantilla.
+ */
+@Component
+public class VersionCatalogo {
+
+    // Distingue contadores de distintos arranques (el contador vive solo en memoria)
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile long ultimaModificacion = System.currentTimeMillis();
+
+    public void incrementar() {
+        version.incrementAndGet();
+        ultimaModificacion = System.currentTimeMillis();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getUltimaModificacion() {
+        return ultimaModificacion;
+    }
+
+    public String etag() {
+        return "\"c" + arranque + "-" + version.get() + "\"";
+    }
+
+    /**
+     * Agrega los validadores a la respuesta y devuelve true si el cliente ya tiene
+     * esta versión (la respuesta queda como 304 y el controlador debe retornar null).
+     */
+    public boolean noModificado(WebRequest webRequest, HttpServletResponse response) {
+        // Obliga a revalidar siempre en lugar de usar caché heurística del navegador
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return webRequest.checkNotModified(etag(), ultimaModificacion);
+    }
+}
@@ -1,18 +1,20 @@
 // ================================
 // AGREGAR PRODUCTO AL CARRITO
 // ================================
-function agregarAlCarrito(productoId) {
+function agregarAlCarrito(productoId, talla = null, cantidad = 1) {
 
-    // valor por defecto
-    const talla = 40;
-    const cantidad = 1;
+    // Sin talla elegida, el servidor toma la primera talla con stock
+    const parametros = new URLSearchParams({ productoId, cantidad });
+    if (talla !== null && talla !== undefined) {
+        parametros.append("talla", talla);
+    }
 
     fetch("/carrito/agregar", {
         method: "POST",
         headers: {
             "Content-Type": "application/x-www-form-urlencoded"
         },
-        body: `productoId=${productoId}&talla=${talla}&cantidad=${cantidad}`
+        body: parametros.toString()
     })
     .then(r => r.json())
     .then(data => {
@@ -0,0 +1,36 @@
+package com.stepup.shoes.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Base de datos de los benchmarks: H2 en memoria (modo MySQL) por defecto, o la
+ * indicada con -Dbenchmark.url / benchmark.usuario / benchmark.password.
+ *
+ * H2 en memoria no tiene ida y vuelta por red, así que sirve para comparar
+ * variantes entre sí; las cifras absolutas se miden contra MySQL. Las tablas
+ * de los benchmarks llevan el prefijo bench_ para no tocar las de la aplicación.
+ */
+final class BaseDatosBenchmark {
+
+    private BaseDatosBenchmark() {
+    }
+
+    static boolean esH2() {
+        return System.getProperty("benchmark.url") == null;
+    }
+
+    static HikariDataSource crear(String nombre, int conexiones) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("benchmark.url",
+                "jdbc:h2:mem:" + nombre + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"));
+        config.setUsername(System.getProperty("benchmark.usuario", "sa"));
+        config.setPassword(System.getProperty("benchmark.password", ""));
+        config.setMaximumPoolSize(conexiones);
+        if (!esH2()) {
+            // Igual que spring.datasource.url: sin esto el driver de MySQL envía los lotes fila por fila
+            config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        }
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,127 @@
+package com.stepup.shoes.benchmark;
+
+import com.stepup.shoes.model.Producto;
+import com.stepup.shoes.service.IndiceBusquedaProductos;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda de productos: índice invertido en memoria (IndiceBusquedaProductos)
+ * contra la consulta LIKE '%termino%' sobre nombre y descripción que reemplazó
+ * (ProductoRepository.buscarPorTermino), con catálogos de distinto tamaño.
+ *
+ * El LIKE recorre la tabla completa, así que su tiempo crece con la cantidad de
+ * productos; el del índice depende de las listas de los términos buscados.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BusquedaBenchmark {
+
+    private static final String[] MARCAS = {"Nike", "Adidas", "Puma", "Vans", "Converse", "Reebok", "Clarks",
+            "Dr. Martens", "New Balance", "Asics"};
+    private static final String[] MODELOS = {"Air Max", "Ultraboost", "Old Skool", "Chuck Taylor", "Revolution",
+            "Desert Boot", "Gel Kayano", "Classic", "Harden", "Suede"};
+    private static final String[] PALABRAS = {"zapatilla", "running", "cuero", "lona", "amortiguación", "suela",
+            "transpirable", "clásica", "urbano", "basketball", "comodidad", "diseño", "ligera", "caucho",
+            "deportiva", "casual", "elegante", "resistente", "tracción", "plantilla", "entrenamiento", "estilo"};
+
+    @Param({"1000", "10000", "100000"})
+    private int productos;
+
+    @Param({"nike", "zapatilla running", "amortiguacion"})
+    private String consulta;
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private IndiceBusquedaProductos indice;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        dataSource = BaseDatosBenchmark.crear("busqueda", 2);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_productos");
+        jdbcTemplate.execute("""
+                CREATE TABLE bench_productos (
+                    id BIGINT NOT NULL PRIMARY KEY,
+                    nombre VARCHAR(255) NOT NULL,
+                    descripcion VARCHAR(1000)
+                )""");
+
+        indice = new IndiceBusquedaProductos();
+        Random random = new Random(42);
+        List<Object[]> filas = new ArrayList<>(1000);
+        for (long id = 1; id <= productos; id++) {
+            Producto producto = new Producto();
+            producto.setId(id);
+            producto.setNombre(MARCAS[random.nextInt(MARCAS.length)] + " "
+                    + MODELOS[random.nextInt(MODELOS.length)] + " " + id);
+            producto.setDescripcion(descripcion(random));
+            producto.setActivo(true);
+            indice.indexar(producto);
+
+            filas.add(new Object[]{id, producto.getNombre(), producto.getDescripcion()});
+            if (filas.size() == 1000) {
+                jdbcTemplate.batchUpdate("INSERT INTO bench_productos VALUES (?, ?, ?)", filas);
+                filas.clear();
+            }
+        }
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO bench_productos VALUES (?, ?, ?)", filas);
+        }
+    }
+
+    // Entre 300 y 1000 caracteres, como las descripciones reales
+    private static String descripcion(Random random) {
+        int largo = 300 + random.nextInt(700);
+        StringBuilder texto = new StringBuilder(largo + 20);
+        while (texto.length() < largo) {
+            texto.append(PALABRAS[random.nextInt(PALABRAS.length)]).append(' ');
+        }
+        return texto.substring(0, Math.min(texto.length(), 1000)).trim();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_productos");
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void indiceInvertido(Blackhole bh) {
+        bh.consume(indice.buscar(consulta, 20));
+    }
+
+    // Igual que buscarPorTermino: todas las coincidencias, sin ranking
+    @Benchmark
+    public void consultaLike(Blackhole bh) {
+        String patron = "%" + consulta + "%";
+        bh.consume(jdbcTemplate.queryForList(
+                "SELECT id FROM bench_productos WHERE nombre LIKE ? OR descripcion LIKE ?", Long.class,
+                patron, patron));
+    }
+}
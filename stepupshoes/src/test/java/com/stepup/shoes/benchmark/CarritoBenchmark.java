@@ -0,0 +1,157 @@
+package com.stepup.shoes.benchmark;
+
+import com.stepup.shoes.model.Carrito;
+import com.stepup.shoes.model.LineaCarrito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carrito tipado ({@link Carrito}) contra el carrito anterior, una
+ * List&lt;Map&lt;String, Object&gt;&gt; en la sesión con búsqueda lineal y casts.
+ *
+ * Mide agregar las líneas y luego cambiar la cantidad de cada una (como
+ * /carrito/agregar y /carrito/actualizar) y serializar el carrito, que es lo que
+ * hace el contenedor o Spring Session al guardar la sesión. La memoria de cada
+ * carrito (objetos alcanzables, medidos con JOL) y los bytes serializados se
+ * imprimen al preparar cada combinación de parámetros; con -prof gc se ve además
+ * lo que asigna cada operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarritoBenchmark {
+
+    private static final String IMAGEN = "/images/productos/zapatilla-running.jpeg";
+
+    @Param({"3", "10", "30"})
+    private int lineas;
+
+    private List<Map<String, Object>> carritoMapa;
+
+    private Carrito carritoTipado;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        carritoMapa = llenarMapa();
+        carritoTipado = llenarTipado();
+        // Como queda en la sesión después de guardarlo el CarritoStore
+        carritoTipado.confirmarCambios();
+
+        System.out.printf("%n[%d líneas] memoria: mapa %d B, tipado %d B | serializado: mapa %d B, tipado %d B%n",
+                lineas,
+                GraphLayout.parseInstance(carritoMapa).totalSize(),
+                GraphLayout.parseInstance(carritoTipado).totalSize(),
+                serializar(carritoMapa).length,
+                serializar(carritoTipado).length);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> agregarMapa() {
+        return llenarMapa();
+    }
+
+    @Benchmark
+    public Carrito agregarTipado() {
+        return llenarTipado();
+    }
+
+    @Benchmark
+    public byte[] serializarMapa() throws IOException {
+        return serializar(carritoMapa);
+    }
+
+    @Benchmark
+    public byte[] serializarTipado() throws IOException {
+        return serializar(carritoTipado);
+    }
+
+    // Mismo código que tenía CarritoController.agregarAlCarrito
+    private List<Map<String, Object>> llenarMapa() {
+        List<Map<String, Object>> carrito = new ArrayList<>();
+        for (int i = 0; i < lineas; i++) {
+            Long productoId = (long) (i + 1);
+            Integer talla = 38 + i % 5;
+            boolean encontrado = false;
+            for (Map<String, Object> item : carrito) {
+                if (item.get("productoId").equals(productoId) && item.get("talla").equals(talla)) {
+                    item.put("cantidad", (Integer) item.get("cantidad") + 1);
+                    encontrado = true;
+                    break;
+                }
+            }
+            if (!encontrado) {
+                Map<String, Object> nuevoItem = new HashMap<>();
+                nuevoItem.put("productoId", productoId);
+                nuevoItem.put("nombre", "Zapatilla " + productoId);
+                nuevoItem.put("precio", 59.99 + i);
+                nuevoItem.put("imagen", IMAGEN);
+                nuevoItem.put("talla", talla);
+                nuevoItem.put("cantidad", 1);
+                nuevoItem.put("stock", 20);
+                carrito.add(nuevoItem);
+            }
+        }
+        for (int i = 0; i < lineas; i++) {
+            Long productoId = (long) (i + 1);
+            Integer talla = 38 + i % 5;
+            for (Map<String, Object> item : carrito) {
+                if (item.get("productoId").equals(productoId) && item.get("talla").equals(talla)) {
+                    item.put("cantidad", (Integer) item.get("cantidad") + 1);
+                    break;
+                }
+            }
+        }
+        return carrito;
+    }
+
+    private Carrito llenarTipado() {
+        Carrito carrito = new Carrito();
+        for (int i = 0; i < lineas; i++) {
+            long productoId = i + 1;
+            int talla = 38 + i % 5;
+            LineaCarrito existente = carrito.buscar(productoId, talla);
+            if (existente != null) {
+                carrito.cambiarCantidad(existente, existente.getCantidad() + 1);
+            } else {
+                carrito.agregar(new LineaCarrito(productoId, talla, "Zapatilla " + productoId, IMAGEN,
+                        59.99 + i, 20, 1));
+            }
+        }
+        for (int i = 0; i < lineas; i++) {
+            LineaCarrito linea = carrito.buscar(i + 1, 38 + i % 5);
+            carrito.cambiarCantidad(linea, linea.getCantidad() + 1);
+        }
+        return carrito;
+    }
+
+    private static byte[] serializar(Object carrito) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(carrito);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,208 @@
+package com.stepup.shoes.benchmark;
+
+import com.stepup.shoes.model.Carrito;
+import com.stepup.shoes.model.LineaCarrito;
+import com.stepup.shoes.service.CarritoStore;
+import com.stepup.shoes.service.JdbcCarritoStore;
+import com.stepup.shoes.service.SesionCarritoStore;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.HttpSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Costo por operación del carrito según dónde se guarda (carrito.store):
+ * leerlo (lo que hace cada petición que lo muestra) y cambiar la cantidad de una
+ * línea y guardarlo (/carrito/actualizar), con varios usuarios a la vez.
+ *
+ * - sesion: SesionCarritoStore con la sesión en base de datos como la guarda
+ *   Spring Session JDBC, es decir, el atributo "carrito" serializado completo en
+ *   una fila que se lee en cada petición y se reescribe cuando cambia.
+ * - jdbc: JdbcCarritoStore sobre carrito_lineas, que lee las filas del
+ *   propietario y escribe solo la línea modificada. Usa propietarios "u:bench-N"
+ *   que se borran al terminar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class CarritoStoreBenchmark {
+
+    @Param({"sesion", "jdbc"})
+    private String store;
+
+    @Param({"3", "20"})
+    private int lineas;
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CarritoStore carritoStore;
+
+    private final AtomicInteger usuarios = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        dataSource = BaseDatosBenchmark.crear("carrito-store", 8);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        if ("jdbc".equals(store)) {
+            JdbcCarritoStore jdbcStore = new JdbcCarritoStore();
+            ReflectionTestUtils.setField(jdbcStore, "jdbcTemplate", jdbcTemplate);
+            jdbcStore.crearTabla();
+            carritoStore = jdbcStore;
+        } else {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS bench_sesion_atributos");
+            jdbcTemplate.execute("""
+                    CREATE TABLE bench_sesion_atributos (
+                        sesion VARCHAR(64) NOT NULL,
+                        nombre VARCHAR(200) NOT NULL,
+                        valor BLOB NOT NULL,
+                        PRIMARY KEY (sesion, nombre)
+                    )""");
+            carritoStore = new SesionEnBaseDeDatos(jdbcTemplate);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        if ("jdbc".equals(store)) {
+            jdbcTemplate.update("DELETE FROM carrito_lineas WHERE propietario LIKE 'u:bench-%'");
+        } else {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS bench_sesion_atributos");
+        }
+        dataSource.close();
+    }
+
+    /**
+     * Un usuario por hilo, cada uno con su sesión y su carrito.
+     */
+    @State(Scope.Thread)
+    public static class Usuario {
+
+        private MockHttpSession session;
+
+        private int operacion;
+
+        @Setup(Level.Trial)
+        public void preparar(CarritoStoreBenchmark benchmark) {
+            session = new MockHttpSession();
+            session.setAttribute("usuarioId", "bench-" + benchmark.usuarios.incrementAndGet());
+            Carrito carrito = benchmark.carritoStore.cargar(session);
+            for (int i = 0; i < benchmark.lineas; i++) {
+                carrito.agregar(new LineaCarrito(i + 1, 38 + i % 5, "Zapatilla " + (i + 1),
+                        "/images/productos/zapatilla-running.jpeg", 59.99 + i, 20, 1));
+            }
+            benchmark.carritoStore.guardar(session, carrito);
+        }
+    }
+
+    @Benchmark
+    public Carrito leer(Usuario usuario) {
+        return carritoStore.cargar(usuario.session);
+    }
+
+    @Benchmark
+    public Carrito actualizar(Usuario usuario) {
+        Carrito carrito = carritoStore.cargar(usuario.session);
+        int operacion = usuario.operacion++;
+        LineaCarrito linea = carrito.linea(operacion % carrito.getCantidadLineas());
+        carrito.cambiarCantidad(linea, 1 + operacion % Carrito.MAX_UNIDADES_POR_LINEA);
+        carritoStore.guardar(usuario.session, carrito);
+        return carrito;
+    }
+
+    /**
+     * SesionCarritoStore más lo que agrega Spring Session JDBC en cada petición:
+     * leer el atributo de la base y deserializarlo al cargar, y serializarlo y
+     * reescribirlo al guardar.
+     */
+    private static class SesionEnBaseDeDatos implements CarritoStore {
+
+        private final SesionCarritoStore sesion = new SesionCarritoStore();
+
+        private final JdbcTemplate jdbcTemplate;
+
+        SesionEnBaseDeDatos(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @Override
+        public String propietario(HttpSession session) {
+            return sesion.propietario(session);
+        }
+
+        @Override
+        public Carrito cargar(HttpSession session) {
+            List<byte[]> valor = jdbcTemplate.query(
+                    "SELECT valor FROM bench_sesion_atributos WHERE sesion = ? AND nombre = 'carrito'",
+                    (rs, fila) -> rs.getBytes(1), session.getId());
+            if (!valor.isEmpty()) {
+                session.setAttribute("carrito", leer(valor.get(0)));
+            }
+            return sesion.cargar(session);
+        }
+
+        @Override
+        public void guardar(HttpSession session, Carrito carrito) {
+            sesion.guardar(session, carrito);
+            jdbcTemplate.update("""
+                    INSERT INTO bench_sesion_atributos (sesion, nombre, valor) VALUES (?, 'carrito', ?)
+                    ON DUPLICATE KEY UPDATE valor = VALUES(valor)""", session.getId(), escribir(carrito));
+        }
+
+        @Override
+        public void eliminar(HttpSession session) {
+            sesion.eliminar(session);
+            jdbcTemplate.update("DELETE FROM bench_sesion_atributos WHERE sesion = ?", session.getId());
+        }
+
+        private static byte[] escribir(Carrito carrito) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(carrito);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        private static Carrito leer(byte[] valor) {
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(valor))) {
+                return (Carrito) in.readObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.stepup.shoes.benchmark;
+
+import com.stepup.shoes.service.GeneradorNumeroPedido;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Números de pedido por segundo de GeneradorNumeroPedido con uno y con varios
+ * hilos compitiendo por el mismo AtomicLong, y el "PED" + currentTimeMillis()
+ * que reemplazó como referencia (más barato, pero repite números dentro del
+ * mismo milisegundo).
+ *
+ * Con 8 hilos el generador puede emitir más de 4096 números por milisegundo;
+ * en ese caso sigue por delante del reloj en vez de esperar, así que el
+ * resultado no queda limitado por la secuencia de 12 bits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneradorNumeroPedidoBenchmark {
+
+    private GeneradorNumeroPedido generador;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        generador = new GeneradorNumeroPedido();
+        generador.validar();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long siguienteUnHilo() {
+        return generador.siguiente();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long siguienteOchoHilos() {
+        return generador.siguiente();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String siguienteNumeroOchoHilos() {
+        return generador.siguienteNumero();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String milisegundosOchoHilos() {
+        return "PED" + System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,232 @@
+package com.stepup.shoes.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencia de registrar un pedido con N líneas, antes y después de agrupar en
+ * lote los inserts de los detalles. Ejecuta las mismas sentencias que genera
+ * Hibernate con cada mapeo de DetallePedido:
+ *
+ * - identidad (antes): id IDENTITY, un INSERT por detalle para leer su id
+ *   generado, sin el producto de la línea.
+ * - lote (ahora): un SELECT ... IN de los productos de las líneas, ids tomados
+ *   de la secuencia emulada detalles_pedido_seq (de a 50, en su propia
+ *   transacción, como el optimizador pooled) y un solo batch de inserts.
+ *
+ * En ambos casos el pedido usa IDENTITY y todo va en una transacción. Con H2 en
+ * memoria cada sentencia cuesta poco; la diferencia real está en las idas y
+ * vueltas a MySQL (-Dbenchmark.url).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistroPedidoBenchmark {
+
+    private static final int PRODUCTOS = 200;
+    private static final int TAMANO_ASIGNACION = 50;
+
+    private static final String SQL_INSERTAR_PEDIDO =
+            "INSERT INTO bench_pedidos (numero_pedido, total, estado, fecha_creacion) VALUES (?, ?, 'PENDIENTE', ?)";
+
+    private static final String SQL_INSERTAR_DETALLE_IDENTIDAD =
+            "INSERT INTO bench_detalles_identidad (pedido_id, producto_id, cantidad, precio, talla) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SQL_INSERTAR_DETALLE =
+            "INSERT INTO bench_detalles (id, pedido_id, producto_id, cantidad, precio, talla) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Param({"1", "10", "30"})
+    private int lineas;
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transaccion;
+
+    private TransactionTemplate transaccionSecuencia;
+
+    private final AtomicLong numeroPedido = new AtomicLong();
+
+    // Ids asignados de la secuencia y todavía sin usar, como el optimizador pooled de Hibernate
+    private long siguienteId;
+
+    private long ultimoIdAsignado = -1;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        dataSource = BaseDatosBenchmark.crear("pedidos", 2);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transaccion = new TransactionTemplate(transactionManager);
+        transaccionSecuencia = new TransactionTemplate(transactionManager);
+        transaccionSecuencia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        eliminarTablas();
+        jdbcTemplate.execute("""
+                CREATE TABLE bench_productos (
+                    id BIGINT NOT NULL PRIMARY KEY,
+                    nombre VARCHAR(255) NOT NULL,
+                    precio DOUBLE NOT NULL
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE bench_pedidos (
+                    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                    numero_pedido VARCHAR(255) NOT NULL UNIQUE,
+                    total DOUBLE NOT NULL,
+                    estado VARCHAR(20) NOT NULL,
+                    fecha_creacion TIMESTAMP(6)
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE bench_detalles_identidad (
+                    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                    pedido_id BIGINT NOT NULL,
+                    producto_id BIGINT,
+                    cantidad INT NOT NULL,
+                    precio DOUBLE NOT NULL,
+                    talla INT NOT NULL
+                )""");
+        jdbcTemplate.execute("""
+                CREATE TABLE bench_detalles (
+                    id BIGINT NOT NULL PRIMARY KEY,
+                    pedido_id BIGINT NOT NULL,
+                    producto_id BIGINT,
+                    cantidad INT NOT NULL,
+                    precio DOUBLE NOT NULL,
+                    talla INT NOT NULL
+                )""");
+        jdbcTemplate.execute("CREATE TABLE bench_detalles_seq (next_val BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO bench_detalles_seq VALUES (1)");
+
+        List<Object[]> productos = new ArrayList<>(PRODUCTOS);
+        for (long id = 1; id <= PRODUCTOS; id++) {
+            productos.add(new Object[]{id, "Zapatilla " + id, 49.99 + id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bench_productos VALUES (?, ?, ?)", productos);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        eliminarTablas();
+        dataSource.close();
+    }
+
+    private void eliminarTablas() {
+        for (String tabla : List.of("bench_detalles_seq", "bench_detalles", "bench_detalles_identidad",
+                "bench_pedidos", "bench_productos")) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + tabla);
+        }
+    }
+
+    @Benchmark
+    public Long identidad() {
+        return transaccion.execute(estado -> {
+            long pedidoId = insertarPedido();
+            for (int i = 0; i < lineas; i++) {
+                KeyHolder clave = new GeneratedKeyHolder();
+                int linea = i;
+                jdbcTemplate.update(conexion -> {
+                    PreparedStatement ps = conexion.prepareStatement(SQL_INSERTAR_DETALLE_IDENTIDAD,
+                            Statement.RETURN_GENERATED_KEYS);
+                    ps.setLong(1, pedidoId);
+                    ps.setNull(2, Types.BIGINT);
+                    ps.setInt(3, 1);
+                    ps.setDouble(4, 49.99 + productoDeLinea(linea));
+                    ps.setInt(5, 38 + linea % 5);
+                    return ps;
+                }, clave);
+            }
+            return pedidoId;
+        });
+    }
+
+    @Benchmark
+    public Long lote() {
+        return transaccion.execute(estado -> {
+            List<Long> ids = new ArrayList<>(lineas);
+            for (int i = 0; i < lineas; i++) {
+                ids.add(productoDeLinea(i));
+            }
+            String marcadores = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            Map<Long, Double> precios = new HashMap<>();
+            jdbcTemplate.query("SELECT id, nombre, precio FROM bench_productos WHERE id IN (" + marcadores + ")",
+                    rs -> {
+                        precios.put(rs.getLong(1), rs.getDouble(3));
+                    }, ids.toArray());
+
+            long pedidoId = insertarPedido();
+            List<Object[]> detalles = new ArrayList<>(lineas);
+            for (int i = 0; i < lineas; i++) {
+                detalles.add(new Object[]{siguienteIdDetalle(), pedidoId, ids.get(i), 1,
+                        precios.get(ids.get(i)), 38 + i % 5});
+            }
+            jdbcTemplate.batchUpdate(SQL_INSERTAR_DETALLE, detalles);
+            return pedidoId;
+        });
+    }
+
+    private long insertarPedido() {
+        KeyHolder clave = new GeneratedKeyHolder();
+        jdbcTemplate.update(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(SQL_INSERTAR_PEDIDO, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, "BENCH-" + numeroPedido.incrementAndGet());
+            ps.setDouble(2, 59.99 * lineas);
+            ps.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            return ps;
+        }, clave);
+        return clave.getKey().longValue();
+    }
+
+    private long productoDeLinea(int linea) {
+        return (numeroPedido.get() * 7 + linea) % PRODUCTOS + 1;
+    }
+
+    // Lo que hace Hibernate con una secuencia emulada en tabla: reservar un bloque de ids aparte
+    private long siguienteIdDetalle() {
+        if (siguienteId > ultimoIdAsignado) {
+            Long inicio = transaccionSecuencia.execute(estado -> {
+                Long actual = jdbcTemplate.queryForObject(
+                        "SELECT next_val FROM bench_detalles_seq FOR UPDATE", Long.class);
+                jdbcTemplate.update("UPDATE bench_detalles_seq SET next_val = ? WHERE next_val = ?",
+                        actual + TAMANO_ASIGNACION, actual);
+                return actual;
+            });
+            siguienteId = inicio;
+            ultimoIdAsignado = inicio + TAMANO_ASIGNACION - 1;
+        }
+        return siguienteId++;
+    }
+}
@@ -0,0 +1,112 @@
+package com.stepup.shoes.benchmark;
+
+import com.stepup.shoes.service.StockCaliente;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservas por segundo sobre un solo SKU caliente (mismo producto y talla) con
+ * muchos hilos a la vez, como en una oferta relámpago.
+ *
+ * - baseDeDatos: el descuento condicional de ProductoTallaRepository.descontar
+ *   (UPDATE ... SET stock = stock - ? WHERE ... AND stock >= ?), con todos los
+ *   hilos esperando el bloqueo de la misma fila.
+ * - memoria: StockCaliente, que reparte el stock en franjas con CAS.
+ *
+ * Cada operación reserva una unidad y la libera (reserva de carrito que vence),
+ * así el stock no se agota durante la medición. Al final de cada iteración se
+ * comprueba que el stock volvió exactamente al inicial: si faltan o sobran
+ * unidades hubo descuentos perdidos o sobreventa y el benchmark falla.
+ * La cantidad de hilos se cambia con -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class StockCalienteBenchmark {
+
+    private static final long PRODUCTO = 1L;
+    private static final int TALLA = 40;
+    private static final int STOCK = 100;
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private StockCaliente stockCaliente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        // Una conexión por hilo, para que la espera sea por la fila y no por el pool
+        dataSource = BaseDatosBenchmark.crear("stock", 16);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_tallas");
+        jdbcTemplate.execute("""
+                CREATE TABLE bench_tallas (
+                    producto_id BIGINT NOT NULL,
+                    talla INT NOT NULL,
+                    stock INT NOT NULL,
+                    PRIMARY KEY (producto_id, talla)
+                )""");
+        jdbcTemplate.update("INSERT INTO bench_tallas VALUES (?, ?, ?)", PRODUCTO, TALLA, STOCK);
+
+        stockCaliente = new StockCaliente();
+        stockCaliente.inicializar(PRODUCTO, TALLA, STOCK);
+    }
+
+    @TearDown(Level.Iteration)
+    public void verificar() {
+        Integer enBase = jdbcTemplate.queryForObject(
+                "SELECT stock FROM bench_tallas WHERE producto_id = ? AND talla = ?", Integer.class, PRODUCTO, TALLA);
+        long enMemoria = stockCaliente.disponible(PRODUCTO, TALLA);
+        if (enBase == null || enBase != STOCK || enMemoria != STOCK) {
+            throw new IllegalStateException("Stock inconsistente: base " + enBase + ", memoria " + enMemoria
+                    + ", esperado " + STOCK);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_tallas");
+        dataSource.close();
+    }
+
+    @Benchmark
+    public boolean baseDeDatos() {
+        boolean reservado = jdbcTemplate.update(
+                "UPDATE bench_tallas SET stock = stock - ? WHERE producto_id = ? AND talla = ? AND stock >= ?",
+                1, PRODUCTO, TALLA, 1) == 1;
+        if (reservado) {
+            jdbcTemplate.update("UPDATE bench_tallas SET stock = stock + ? WHERE producto_id = ? AND talla = ?",
+                    1, PRODUCTO, TALLA);
+        }
+        return reservado;
+    }
+
+    @Benchmark
+    public boolean memoria() {
+        boolean reservado = stockCaliente.descontar(PRODUCTO, TALLA, 1);
+        if (reservado) {
+            stockCaliente.devolver(PRODUCTO, TALLA, 1);
+        }
+        return reservado;
+    }
+}
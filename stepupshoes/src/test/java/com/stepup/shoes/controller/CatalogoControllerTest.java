@@ -0,0 +1,139 @@
+package com.stepup.shoes.controller;
+
+import com.stepup.shoes.ContadorSentencias;
+import com.stepup.shoes.model.Categoria;
+import com.stepup.shoes.model.Producto;
+import com.stepup.shoes.model.ProductoTalla;
+import com.stepup.shoes.repository.CategoriaRepository;
+import com.stepup.shoes.repository.ProductoRepository;
+import com.stepup.shoes.service.CatalogoSnapshot;
+import com.stepup.shoes.service.PedidoService;
+import com.stepup.shoes.service.VersionCatalogo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sentencias SQL por petición de las páginas del catálogo, contando todo lo que
+ * hace la petición (controlador, servicios y render de la plantilla) sobre H2.
+ * Una consulta de más por producto (N+1) hace fallar la prueba.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalogo-web;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.stepup.shoes.ContadorSentencias",
+        "spring.devtools.restart.enabled=false",
+        "catalogo.tamano-pagina=24"
+})
+@AutoConfigureMockMvc
+@WithMockUser
+class CatalogoControllerTest {
+
+    // Más productos que una página, para que el listado use el LIMIT y el cursor
+    private static final int PRODUCTOS = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private CatalogoSnapshot catalogoSnapshot;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    // Su alineación de secuencia al arrancar es SQL de MySQL; el catálogo no lo usa
+    @MockitoBean
+    private PedidoService pedidoService;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        List<Categoria> categorias = new ArrayList<>();
+        for (String nombre : List.of("Running", "Casual", "Formal")) {
+            Categoria categoria = new Categoria();
+            categoria.setNombre(nombre);
+            categorias.add(categoriaRepository.save(categoria));
+        }
+        for (int i = 0; i < PRODUCTOS; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Producto " + i);
+            producto.setPrecio(40.0 + i);
+            producto.setStock(10);
+            producto.setImagenUrl("running.jpeg");
+            producto.setCategoria(categorias.get(i % categorias.size()));
+            for (int talla : new int[]{39, 40}) {
+                ProductoTalla productoTalla = new ProductoTalla();
+                productoTalla.setProducto(producto);
+                productoTalla.setTalla(talla);
+                productoTalla.setStock(5);
+                producto.getTallas().add(productoTalla);
+            }
+            ids.add(productoRepository.save(producto).getId());
+        }
+        catalogoSnapshot.recargar();
+        // Versión nueva: la caché de páginas se vacía y cada petición se renderiza de verdad
+        versionCatalogo.incrementar();
+        ContadorSentencias.reiniciar();
+    }
+
+    @AfterEach
+    void limpiar() {
+        productoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    void catalogoUsaDosSentenciasSinImportarElTamanoDeLaPagina() throws Exception {
+        mockMvc.perform(get("/catalogo")).andExpect(status().isOk());
+
+        // Productos de la página (con su categoría) y lista de categorías del filtro;
+        // facetas y tallas salen del snapshot en memoria
+        assertEquals(2, ContadorSentencias.total());
+    }
+
+    @Test
+    void catalogoFiltradoUsaLasMismasSentencias() throws Exception {
+        mockMvc.perform(get("/catalogo").param("categoria", "Running").param("talla", "40")
+                .param("orden", "precio-asc")).andExpect(status().isOk());
+
+        assertEquals(2, ContadorSentencias.total());
+    }
+
+    @Test
+    void detalleDeProductoUsaUnaSentencia() throws Exception {
+        mockMvc.perform(get("/catalogo/producto/{id}", ids.get(0))).andExpect(status().isOk());
+
+        // Producto, categoría y tallas con un solo SELECT (el stock se pide aparte)
+        assertEquals(1, ContadorSentencias.total());
+    }
+
+    @Test
+    void stockDelProductoUsaUnaSentencia() throws Exception {
+        mockMvc.perform(get("/catalogo/stock/{id}", ids.get(0))).andExpect(status().isOk());
+
+        assertEquals(1, ContadorSentencias.total());
+    }
+}
@@ -0,0 +1,102 @@
+package com.stepup.shoes.repository;
+
+import com.stepup.shoes.model.DetallePedido;
+import com.stepup.shoes.model.Pedido;
+import com.stepup.shoes.model.Producto;
+import com.stepup.shoes.model.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cantidad de sentencias SQL del detalle de pedido (Hibernate Statistics sobre H2).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pedidos;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PedidoRepositoryTest {
+
+    private static final int LINEAS = 5;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    private Usuario usuario;
+
+    private Pedido pedido;
+
+    @BeforeEach
+    void preparar() {
+        usuario = new Usuario();
+        usuario.setNombre("Cliente");
+        usuario.setEmail("cliente@stepup.test");
+        usuario.setPassword("x");
+        em.persist(usuario);
+
+        pedido = new Pedido();
+        pedido.setNumeroPedido("PED0000000000000000001");
+        pedido.setUsuario(usuario);
+        pedido.setTotal(0.0);
+        for (int i = 0; i < LINEAS; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Producto " + i);
+            producto.setPrecio(50.0 + i);
+            producto.setStock(10);
+            em.persist(producto);
+
+            DetallePedido detalle = new DetallePedido();
+            detalle.setPedido(pedido);
+            detalle.setProducto(producto);
+            detalle.setCantidad(1);
+            detalle.setPrecio(producto.getPrecio());
+            detalle.setTalla(40);
+            pedido.getDetalles().add(detalle);
+        }
+        em.persist(pedido);
+        em.flush();
+        em.clear();
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void detalleDelPedidoEnUnaSolaSentencia() {
+        Pedido cargado = pedidoRepository.findDetalleDeUsuario(pedido.getId(), usuario.getId()).orElseThrow();
+
+        // Lo que muestra la vista de detalle: cada línea con el nombre de su producto
+        assertEquals(LINEAS, cargado.getDetalles().size());
+        cargado.getDetalles().forEach(d -> assertTrue(d.getProducto().getNombre().startsWith("Producto")));
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void pedidoDeOtroUsuarioNoSeDevuelve() {
+        assertTrue(pedidoRepository.findDetalleDeUsuario(pedido.getId(), usuario.getId() + 1).isEmpty());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+}
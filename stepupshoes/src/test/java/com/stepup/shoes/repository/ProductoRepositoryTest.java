@@ -0,0 +1,117 @@
+package com.stepup.shoes.repository;
+
+import com.stepup.shoes.model.Categoria;
+import com.stepup.shoes.model.Producto;
+import com.stepup.shoes.model.ProductoTalla;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Cantidad de sentencias SQL de las páginas del catálogo (Hibernate Statistics sobre H2):
+ * el listado (/catalogo) y el detalle de producto (/catalogo/producto/{id}).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalogo;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductoRepositoryTest {
+
+    private static final int PRODUCTOS = 30;
+    private static final int TAMANO_PAGINA = 12;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        List<Categoria> categorias = new ArrayList<>();
+        for (String nombre : List.of("Running", "Casual", "Formal")) {
+            Categoria categoria = new Categoria();
+            categoria.setNombre(nombre);
+            categorias.add(em.persist(categoria));
+        }
+        for (int i = 0; i < PRODUCTOS; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Producto " + i);
+            producto.setPrecio(40.0 + i);
+            producto.setStock(10);
+            producto.setCategoria(categorias.get(i % categorias.size()));
+            for (int talla : new int[]{39, 40}) {
+                ProductoTalla productoTalla = new ProductoTalla();
+                productoTalla.setProducto(producto);
+                productoTalla.setTalla(talla);
+                productoTalla.setStock(5);
+                producto.getTallas().add(productoTalla);
+            }
+            ids.add(em.persist(producto).getId());
+        }
+        em.flush();
+        em.clear();
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void paginaDelCatalogoDesdeElSnapshotEnUnaSentencia() {
+        // Con el snapshot en memoria solo se cargan por id los productos de la página
+        List<Producto> pagina = productoRepository.findByIdIn(ids.subList(0, TAMANO_PAGINA + 1));
+
+        assertEquals(TAMANO_PAGINA + 1, pagina.size());
+        pagina.forEach(p -> assertNotNull(p.getCategoria().getNombre()));
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void paginaDelCatalogoDesdeLaBaseDeDatosEnUnaSentencia() {
+        // Sin snapshot, la misma página sale de una consulta con la categoría unida
+        List<Producto> pagina = productoRepository.findBy(
+                Specification.allOf(ProductoSpecifications.activos(), ProductoSpecifications.conCategoria()),
+                q -> q.sortBy(ProductoSpecifications.ordenamiento(null)).limit(TAMANO_PAGINA + 1).all());
+
+        assertEquals(TAMANO_PAGINA + 1, pagina.size());
+        pagina.forEach(p -> assertNotNull(p.getCategoria().getNombre()));
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void detalleDeProductoEnUnaSentencia() {
+        Producto producto = productoRepository.findDetalleById(ids.get(0)).orElseThrow();
+
+        assertNotNull(producto.getCategoria().getNombre());
+        assertEquals(List.of(39, 40), producto.getTallasDisponibles());
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+}
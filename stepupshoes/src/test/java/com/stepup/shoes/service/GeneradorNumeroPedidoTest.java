@@ -0,0 +1,67 @@
+package com.stepup.shoes.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeneradorNumeroPedidoTest {
+
+    private static final int HILOS = 8;
+    private static final int POR_HILO = 20_000;
+
+    @Test
+    void noRepiteNumerosEntreHilosYCreceEnCadaHilo() throws Exception {
+        GeneradorNumeroPedido generador = new GeneradorNumeroPedido();
+        generador.validar();
+
+        Set<Long> emitidos = ConcurrentHashMap.newKeySet();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+        try {
+            List<Future<Boolean>> resultados = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                resultados.add(ejecutor.submit(() -> {
+                    salida.await();
+                    long anterior = Long.MIN_VALUE;
+                    boolean creciente = true;
+                    for (int i = 0; i < POR_HILO; i++) {
+                        long numero = generador.siguiente();
+                        creciente &= numero > anterior;
+                        anterior = numero;
+                        emitidos.add(numero);
+                    }
+                    return creciente;
+                }));
+            }
+            salida.countDown();
+            for (Future<Boolean> resultado : resultados) {
+                assertTrue(resultado.get(), "los números de un mismo hilo deben ser crecientes");
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        assertEquals(HILOS * POR_HILO, emitidos.size(), "hay números de pedido repetidos");
+    }
+
+    @Test
+    void elNumeroConPrefijoConservaElOrden() {
+        GeneradorNumeroPedido generador = new GeneradorNumeroPedido();
+        String primero = generador.siguienteNumero();
+        String segundo = generador.siguienteNumero();
+
+        assertTrue(primero.startsWith("PED"));
+        assertEquals(3 + 19, primero.length());
+        assertTrue(primero.compareTo(segundo) < 0);
+    }
+}